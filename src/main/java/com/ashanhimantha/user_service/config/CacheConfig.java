@@ -0,0 +1,38 @@
+package com.ashanhimantha.user_service.config;
+
+import com.ashanhimantha.user_service.service.cache.AddressCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Spring Cache backed by Caffeine. Caches are created up front so their hit, miss and eviction counts
+ * are bound to Micrometer at startup ({@code cache.gets}, {@code cache.evictions}, tagged by cache name).
+ * The manager is transaction-aware: an eviction inside a transaction happens after commit, so a concurrent
+ * read cannot re-cache the rows that are about to change.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    @Bean
+    public CacheManager cacheManager(@Value("${cache.addresses.maximum-size:100000}") long addressesMaximumSize,
+                                     @Value("${cache.addresses.ttl-ms:600000}") long addressesTtlMs) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(Caffeine.newBuilder()
+                .maximumSize(addressesMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(addressesTtlMs))
+                .recordStats());
+        cacheManager.setCacheNames(List.of(AddressCache.NAME));
+        cacheManager.setAllowNullValues(false);
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ashanhimantha.user_service.config;
+
+import org.flywaydb.database.postgresql.PostgreSQLConfigurationExtension;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The schema is owned by the Flyway migrations in {@code db/migration}; Hibernate only validates it.
+ * <p>
+ * Databases created before the migrations existed (by {@code ddl-auto=update}) have tables but no Flyway
+ * history. They are baselined at version 0, so the baseline migration still runs against them; it only
+ * creates what is missing.
+ * <p>
+ * Flyway's default PostgreSQL lock is a transactional advisory lock, which keeps a transaction open for the
+ * whole run. {@code CREATE INDEX CONCURRENTLY} waits for every open transaction to finish, so it would
+ * wait on that one forever; the session-level lock is used instead.
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer baselineExistingSchema() {
+        return configuration -> configuration.baselineOnMigrate(true).baselineVersion("0");
+    }
+
+    @Bean
+    public FlywayConfigurationCustomizer sessionLevelMigrationLock() {
+        return configuration -> configuration.getPluginRegister()
+                .getPlugin(PostgreSQLConfigurationExtension.class)
+                .setTransactionalLock(false);
+    }
+}
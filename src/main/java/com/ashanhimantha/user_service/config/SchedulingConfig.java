@@ -0,0 +1,21 @@
+package com.ashanhimantha.user_service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The {@code @Scheduled} tasks share one scheduler. Spring Boot gives it a single thread by default, so a long
+ * run (a full directory refresh, a retention pass pausing between batches) would hold up the one-second event
+ * flush and every other task. The pool defaults to four threads here; {@code spring.task.scheduling.pool.size}
+ * still overrides it.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer schedulerPoolSize(@Value("${spring.task.scheduling.pool.size:4}") int poolSize) {
+        return scheduler -> scheduler.setPoolSize(poolSize);
+    }
+}
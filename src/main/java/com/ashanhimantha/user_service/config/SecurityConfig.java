@@ -20,10 +20,10 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Configuration
 @EnableWebSecurity
@@ -36,6 +36,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .authorizeHttpRequests(authorize -> authorize
+                        // Container health checks and the Prometheus scraper call these without a token.
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .oauth2ResourceServer(oauth2 -> oauth2
@@ -84,6 +86,8 @@ public class SecurityConfig {
     @Bean
     public Converter<Jwt, Collection<GrantedAuthority>> jwtGrantedAuthoritiesConverter() {
         return jwt -> {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+
             // Get cognito:groups claim
             Object groupsClaim = jwt.getClaim("cognito:groups");
 
@@ -91,12 +95,20 @@ public class SecurityConfig {
                 @SuppressWarnings("unchecked")
                 List<String> groups = (List<String>) groupsClaim;
 
-                return groups.stream()
+                groups.stream()
                         .map(SimpleGrantedAuthority::new)
-                        .collect(Collectors.toList());
+                        .forEach(authorities::add);
+            }
+
+            // Machine-to-machine (client credentials) tokens carry scopes instead of groups.
+            String scope = jwt.getClaimAsString("scope");
+            if (scope != null && !scope.isBlank()) {
+                Arrays.stream(scope.trim().split("\\s+"))
+                        .map(value -> new SimpleGrantedAuthority("SCOPE_" + value))
+                        .forEach(authorities::add);
             }
 
-            return List.of();
+            return authorities;
         };
     }
 }
\ No newline at end of file
@@ -15,6 +15,11 @@ public abstract class AbstractController {
                 .body(ApiResponse.success(message, data));
     }
 
+    protected <T> ResponseEntity<ApiResponse<T>> accepted(String message, T data) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(message, data));
+    }
+
     protected <T> ResponseEntity<ApiResponse<T>> error(String message, HttpStatus status) {
         return ResponseEntity.status(status).body(ApiResponse.error(message));
     }
@@ -0,0 +1,78 @@
+package com.ashanhimantha.user_service.controller;
+
+import com.ashanhimantha.user_service.dto.request.AddressLookupRequest;
+import com.ashanhimantha.user_service.dto.request.AddressUpsertRequest;
+import com.ashanhimantha.user_service.dto.response.AddressUpsertResult;
+import com.ashanhimantha.user_service.dto.response.ApiResponse;
+import com.ashanhimantha.user_service.entity.Address;
+import com.ashanhimantha.user_service.service.UserService;
+import com.ashanhimantha.user_service.service.bulk.AddressBulkUpserter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Address access for other services (order, delivery, reconciliation jobs), which act for many users at once.
+ * Callers authenticate with a client-credentials token carrying {@code user-service/addresses.read} to read
+ * and {@code user-service/addresses.write} to write.
+ */
+@RestController
+@RequestMapping("/api/v1/internal/addresses")
+public class InternalAddressController extends AbstractController {
+
+    private final UserService userService;
+    private final AddressBulkUpserter bulkUpserter;
+    private final ObjectMapper objectMapper;
+
+    public InternalAddressController(UserService userService, AddressBulkUpserter bulkUpserter, ObjectMapper objectMapper) {
+        this.userService = userService;
+        this.bulkUpserter = bulkUpserter;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Active addresses of every requested user, keyed by user ID in request order. Users without addresses
+     * map to an empty list.
+     */
+    @PostMapping("/lookup")
+    @PreAuthorize("hasAuthority('SCOPE_user-service/addresses.read')")
+    public ResponseEntity<ApiResponse<Map<String, List<Address>>>> lookup(@Valid @RequestBody AddressLookupRequest request) {
+        return success("Addresses retrieved successfully", userService.getAddressesForUsers(request.getUserIds()));
+    }
+
+    /**
+     * Creates or updates addresses in bulk. The body is a JSON array or NDJSON stream of
+     * {@link AddressUpsertRequest}s of any length; the response streams one {@link AddressUpsertResult} per
+     * row, in input order, as each batch commits.
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('SCOPE_user-service/addresses.write')")
+    public ResponseEntity<StreamingResponseBody> bulkUpsert(HttpServletRequest request) {
+        StreamingResponseBody body = outputStream -> {
+            bulkUpserter.upsert(request.getInputStream(), result -> {
+                try {
+                    outputStream.write(objectMapper.writeValueAsBytes(result));
+                    outputStream.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
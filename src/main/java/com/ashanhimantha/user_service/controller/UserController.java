@@ -7,78 +7,81 @@ import com.ashanhimantha.user_service.dto.request.UpdateUserStatusRequest;
 import com.ashanhimantha.user_service.dto.response.ApiResponse;
 import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
 import com.ashanhimantha.user_service.entity.Address;
+import com.ashanhimantha.user_service.exception.CognitoThrottledException;
+import com.ashanhimantha.user_service.exception.UpstreamTimeoutException;
 import com.ashanhimantha.user_service.service.CognitoUserService;
 import com.ashanhimantha.user_service.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/v1/users")
 @CrossOrigin(origins = "*")
 public class UserController extends AbstractController {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int STREAM_FLUSH_EVERY = 100;
+    private static final int DEFAULT_SEARCH_PAGE_SIZE = 50;
+
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final boolean claimsFirstProfile;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, ObjectMapper objectMapper,
+                          @Value("${profile.claims-first.enabled:false}") boolean claimsFirstProfile) {
         this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.claimsFirstProfile = claimsFirstProfile;
     }
 
     // ==================== Public/User Endpoints ====================
 
     /**
-     * Get current user profile from Cognito
+     * Get current user profile from Cognito.
+     * In claims-first mode the profile is answered from the verified JWT, with the remaining
+     * fields filled from a short-lived profile cache that refreshes in the background.
      */
     @GetMapping("/currentUser")
     public ResponseEntity<?> getMyProfile(@AuthenticationPrincipal Jwt jwt) {
         String userId = jwt.getSubject();
 
+        if (claimsFirstProfile) {
+            return ResponseEntity.ok(userService.getProfileFromClaims(jwt.getClaims()));
+        }
+
         try {
             CognitoUserResponse userProfile = userService.getCognitoUserProfile(userId);
             return ResponseEntity.ok(userProfile);
         } catch (Exception e) {
             // Fallback: return info from JWT if Cognito fails
-            CognitoUserResponse fallbackResponse = new CognitoUserResponse();
-            fallbackResponse.setId(userId);
-            fallbackResponse.setUsername(userId);
-            String email = jwt.getClaimAsString("email");
-            if (email == null) {
-                email = jwt.getClaimAsString("username");
-            }
-            fallbackResponse.setEmail(email);
-            fallbackResponse.setFirstName(jwt.getClaimAsString("given_name"));
-            fallbackResponse.setLastName(jwt.getClaimAsString("family_name"));
-            fallbackResponse.setPhone(jwt.getClaimAsString("phone_number"));
-            Object emailVerified = jwt.getClaim("email_verified");
-            if (emailVerified != null) {
-                fallbackResponse.setEmailVerified(Boolean.parseBoolean(emailVerified.toString()));
-            }
+            CognitoUserResponse fallbackResponse = CognitoUserResponse.fromJwtClaims(jwt.getClaims());
             fallbackResponse.setStatus("CONFIRMED");
             java.time.Instant iatInstant = jwt.getClaimAsInstant("iat");
             if (iatInstant != null) {
                 fallbackResponse.setCreatedDate(iatInstant.toString());
                 fallbackResponse.setLastModifiedDate(iatInstant.toString());
             }
-            Object groupsClaim = jwt.getClaim("cognito:groups");
-            if (groupsClaim instanceof List<?>) {
-                @SuppressWarnings("unchecked")
-                List<String> userGroups = (List<String>) groupsClaim;
-                fallbackResponse.setUserGroups(userGroups);
-            } else {
-                fallbackResponse.setUserGroups(List.of());
-            }
             return ResponseEntity.ok(fallbackResponse);
         }
     }
@@ -147,22 +150,31 @@ public class UserController extends AbstractController {
      * This endpoint is called with a URL like:
      * /api/v1/users/search?role=Suppliers
      * /api/v1/users/search?email=test@example.com
+     * /api/v1/users/search?role=Customers&limit=100&cursor=...
+     * When limit or cursor is given, the data is a page ({users, nextToken}) in username order;
+     * pass nextToken back as cursor until it is null.
      */
     @GetMapping("/search")
     @PreAuthorize("hasAuthority('SuperAdmins')")
-    public ResponseEntity<ApiResponse<List<CognitoUserResponse>>> searchUsers(
+    public ResponseEntity<?> searchUsers(
             @RequestParam(required = false) String email,
             @RequestParam(required = false) String firstName,
             @RequestParam(required = false) String lastName,
             @RequestParam(required = false) String username,
             @RequestParam(required = false) String status,
-            @RequestParam(required = false) String role) {
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) @Min(1) @Max(500) Integer limit,
+            @RequestParam(required = false) String cursor) {
 
-        // This logging is very helpful for debugging to see exactly what the server received.
-        System.out.println(
-                String.format("--- SEARCHING USERS --- Received params: email=[%s], firstName=[%s], lastName=[%s], username=[%s], status=[%s], role=[%s]",
-                        email, firstName, lastName, username, status, role)
-        );
+        logger.debug("Searching users: email=[{}], firstName=[{}], lastName=[{}], username=[{}], status=[{}], role=[{}], limit=[{}]",
+                email, firstName, lastName, username, status, role, limit);
+
+        if (limit != null || cursor != null) {
+            int pageSize = limit != null ? limit : DEFAULT_SEARCH_PAGE_SIZE;
+            CognitoUserService.PaginatedUserResponse page =
+                    userService.searchCognitoUsersPage(email, firstName, lastName, username, status, role, pageSize, cursor);
+            return success("Search completed successfully", page);
+        }
 
         // If only the 'email' parameter is provided, use a more efficient Cognito query.
         if (email != null && firstName == null && lastName == null && username == null && status == null && role == null) {
@@ -171,17 +183,36 @@ public class UserController extends AbstractController {
         }
 
         // For any other combination of parameters, use the general-purpose search method
-        // which fetches all users and filters them in the application.
+        // which filters the in-memory user directory.
         List<CognitoUserResponse> users = userService.searchCognitoUsers(email, firstName, lastName, username, status, role);
         return success("Search completed successfully", users);
     }
 
+    /**
+     * Streaming variant of /search: writes one JSON user per line (NDJSON) as matches are found.
+     * Blocking socket writes throttle the directory walk to the client's pace.
+     */
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('SuperAdmins')")
+    public ResponseEntity<StreamingResponseBody> streamSearchUsers(
+            @RequestParam(required = false) String email,
+            @RequestParam(required = false) String firstName,
+            @RequestParam(required = false) String lastName,
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String role) {
+        Stream<CognitoUserResponse> users = userService.streamCognitoUsers(email, firstName, lastName, username, status, role);
+        return ndjson(users);
+    }
+
     @GetMapping("/{userId}")
     @PreAuthorize("hasAuthority('SuperAdmins')")
     public ResponseEntity<ApiResponse<CognitoUserResponse>> getUserById(@PathVariable String userId) {
         try {
             CognitoUserResponse user = userService.getCognitoUserProfile(userId);
             return success("User retrieved successfully", user);
+        } catch (CognitoThrottledException | UpstreamTimeoutException e) {
+            throw e;
         } catch (Exception e) {
             return error("User not found", HttpStatus.NOT_FOUND);
         }
@@ -193,6 +224,8 @@ public class UserController extends AbstractController {
         try {
             CognitoUserResponse newUser = userService.createCognitoAdminUser(request);
             return created("User created successfully", newUser);
+        } catch (CognitoThrottledException | UpstreamTimeoutException e) {
+            throw e;
         } catch (RuntimeException e) {
             return error(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -207,6 +240,8 @@ public class UserController extends AbstractController {
                     .collect(Collectors.toList());
             userService.syncCognitoUserRoles(userId, roleNames);
             return success("User roles updated successfully", null);
+        } catch (CognitoThrottledException | UpstreamTimeoutException e) {
+            throw e;
         } catch (RuntimeException e) {
             return error(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -221,6 +256,8 @@ public class UserController extends AbstractController {
             return success("User status successfully updated to " + status, null);
         } catch (UnsupportedOperationException e) {
             return error(e.getMessage(), HttpStatus.FORBIDDEN);
+        } catch (CognitoThrottledException | UpstreamTimeoutException e) {
+            throw e;
         } catch (RuntimeException e) {
             return error(e.getMessage(), HttpStatus.BAD_REQUEST);
         }
@@ -232,8 +269,33 @@ public class UserController extends AbstractController {
         try {
             List<CognitoUserResponse> employees = userService.getEmployeeUsers();
             return success("Employee users retrieved successfully", employees);
+        } catch (CognitoThrottledException | UpstreamTimeoutException e) {
+            throw e;
         } catch (Exception e) {
             return error("Failed to retrieve employee users: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping(value = "/employees/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('SuperAdmins')")
+    public ResponseEntity<StreamingResponseBody> streamEmployeeUsers() {
+        return ndjson(userService.streamEmployeeUsers());
+    }
+
+    private ResponseEntity<StreamingResponseBody> ndjson(Stream<CognitoUserResponse> users) {
+        StreamingResponseBody body = outputStream -> {
+            try (users) {
+                int written = 0;
+                for (Iterator<CognitoUserResponse> it = users.iterator(); it.hasNext(); ) {
+                    outputStream.write(objectMapper.writeValueAsBytes(it.next()));
+                    outputStream.write('\n');
+                    if (++written % STREAM_FLUSH_EVERY == 0) {
+                        outputStream.flush();
+                    }
+                }
+                outputStream.flush();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
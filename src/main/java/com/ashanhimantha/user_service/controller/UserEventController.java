@@ -0,0 +1,35 @@
+package com.ashanhimantha.user_service.controller;
+
+import com.ashanhimantha.user_service.dto.response.ApiResponse;
+import com.ashanhimantha.user_service.service.ingest.UserEventIngestor;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Ingestion endpoint for user changes pushed by Cognito Lambda triggers and EventBridge (API destination).
+ * Callers authenticate with a client-credentials token carrying the {@code user-service/events.write} scope.
+ */
+@RestController
+@RequestMapping("/api/v1/internal/user-events")
+public class UserEventController extends AbstractController {
+
+    private final UserEventIngestor ingestor;
+
+    public UserEventController(UserEventIngestor ingestor) {
+        this.ingestor = ingestor;
+    }
+
+    /**
+     * Accepts one event or an array of events. Changes are applied asynchronously, within about a second.
+     */
+    @PostMapping
+    @PreAuthorize("hasAuthority('SCOPE_user-service/events.write')")
+    public ResponseEntity<ApiResponse<UserEventIngestor.IngestResult>> ingest(@RequestBody JsonNode payload) {
+        return accepted("User events accepted", ingestor.accept(payload));
+    }
+}
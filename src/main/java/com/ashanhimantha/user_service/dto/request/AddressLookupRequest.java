@@ -0,0 +1,16 @@
+package com.ashanhimantha.user_service.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AddressLookupRequest {
+
+    @NotEmpty(message = "At least one user ID is required")
+    @Size(max = 10000, message = "At most 10000 user IDs can be looked up at once")
+    private List<@NotBlank(message = "User IDs cannot be blank") String> userIds;
+}
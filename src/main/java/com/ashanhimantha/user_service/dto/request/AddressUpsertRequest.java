@@ -0,0 +1,21 @@
+package com.ashanhimantha.user_service.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * One row of a bulk address upsert: an address for {@code userId}, created when {@code id} is absent and
+ * otherwise written over that user's active address {@code id}.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class AddressUpsertRequest extends AddressRequest {
+
+    @NotBlank(message = "User ID is required")
+    @Size(max = 255, message = "User ID cannot be longer than 255 characters")
+    private String userId;
+
+    private Long id;
+}
@@ -0,0 +1,21 @@
+package com.ashanhimantha.user_service.dto.response;
+
+import java.util.List;
+
+/**
+ * Outcome of one row of a bulk address upsert. {@code row} is the row's 1-based position in the input;
+ * {@code id} is the created or updated address.
+ */
+public record AddressUpsertResult(long row, Status status, String userId, Long id, List<String> errors) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        /** The row names an address that does not exist, is deleted, or belongs to another user. */
+        NOT_FOUND,
+        /** The row failed validation and was not written. */
+        INVALID,
+        /** The row's batch could not be written; nothing in that batch was. */
+        FAILED
+    }
+}
@@ -42,6 +42,45 @@ public class CognitoUserResponse {
         return user;
     }
 
+    /**
+     * Builds a profile from verified JWT claims only. Fields the token does not carry
+     * (typically status, phone and dates) are left null.
+     */
+    public static CognitoUserResponse fromJwtClaims(Map<String, Object> claims) {
+        CognitoUserResponse user = new CognitoUserResponse();
+        String sub = claimAsString(claims, "sub");
+        user.setId(sub);
+        String username = claimAsString(claims, "cognito:username");
+        if (username == null) {
+            username = claimAsString(claims, "username");
+        }
+        user.setUsername(username != null ? username : sub);
+        String email = claimAsString(claims, "email");
+        if (email == null) {
+            email = claimAsString(claims, "username");
+        }
+        user.setEmail(email);
+        user.setFirstName(claimAsString(claims, "given_name"));
+        user.setLastName(claimAsString(claims, "family_name"));
+        user.setPhone(claimAsString(claims, "phone_number"));
+        Object emailVerified = claims.get("email_verified");
+        if (emailVerified != null) {
+            user.setEmailVerified(Boolean.parseBoolean(emailVerified.toString()));
+        }
+        Object groupsClaim = claims.get("cognito:groups");
+        if (groupsClaim instanceof List<?> groups) {
+            user.setUserGroups(groups.stream().map(String::valueOf).toList());
+        } else {
+            user.setUserGroups(List.of());
+        }
+        return user;
+    }
+
+    private static String claimAsString(Map<String, Object> claims, String name) {
+        Object value = claims.get(name);
+        return value != null ? value.toString() : null;
+    }
+
     public static CognitoUserResponse fromUserType(UserType userType) {
         return fromUserType(userType, null);
     }
@@ -8,7 +8,7 @@ import org.hibernate.annotations.Where;
 @Entity
 @Table(name = "addresses")
 @Data
-@SQLDelete(sql = "UPDATE addresses SET active = false WHERE id = ?") // Override DELETE command
+@SQLDelete(sql = "UPDATE addresses SET active = false, deleted_at = now() WHERE id = ?") // Override DELETE command
 @Where(clause = "active = true")
 public class Address {
 
@@ -0,0 +1,36 @@
+package com.ashanhimantha.user_service.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * Log of the change events broadcast between replicas over {@code LISTEN/NOTIFY}. A NOTIFY is lost when a
+ * listener is disconnected, so receivers replay missed events from here; rows are purged after a retention
+ * period. Written and read with JDBC by {@code CoherenceChannel}.
+ */
+@Entity
+@Table(name = "coherence_events", indexes = {
+        @Index(name = "idx_coherence_events_origin_seq", columnList = "origin, seq"),
+        @Index(name = "idx_coherence_events_created_at", columnList = "created_at")
+})
+@Data
+public class CoherenceEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String origin;
+
+    @Column(nullable = false)
+    private long seq;
+
+    @Column(columnDefinition = "text", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,68 @@
+package com.ashanhimantha.user_service.entity;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.BatchSize;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Read-model copy of a Cognito user, synced from the pool. The primary key is the Cognito {@code sub},
+ * which is also {@code addresses.user_id}, so users and addresses can be joined in SQL.
+ * Trigram indexes for "contains" search are created by the V2 migration; JPA cannot declare them.
+ */
+@Entity
+@Table(name = "users", indexes = {
+        @Index(name = "ux_users_username", columnList = "username", unique = true),
+        @Index(name = "idx_users_synced_at", columnList = "synced_at")
+})
+@Data
+public class DirectoryUser {
+
+    @Id
+    @Column(name = "id", nullable = false)
+    private String id;
+
+    @Column(name = "username", nullable = false)
+    private String username;
+
+    private String email;
+    private String firstName;
+    private String lastName;
+    private String phone;
+    private String status;
+    private boolean emailVerified;
+    private Instant createdAt;
+    private Instant lastModifiedAt;
+
+    @Column(name = "synced_at", nullable = false)
+    private Instant syncedAt;
+
+    @ElementCollection
+    @CollectionTable(name = "user_groups",
+            joinColumns = @JoinColumn(name = "user_id"),
+            indexes = @Index(name = "idx_user_groups_group_name", columnList = "group_name"))
+    @Column(name = "group_name", nullable = false)
+    @BatchSize(size = 100)
+    private Set<String> groups = new LinkedHashSet<>();
+
+    public CognitoUserResponse toResponse() {
+        CognitoUserResponse user = new CognitoUserResponse();
+        user.setId(id);
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setPhone(phone);
+        user.setEmailVerified(emailVerified);
+        user.setStatus(status);
+        user.setCreatedDate(createdAt == null ? null : createdAt.toString());
+        user.setLastModifiedDate(lastModifiedAt == null ? null : lastModifiedAt.toString());
+        user.setUserGroups(new ArrayList<>(groups));
+        return user;
+    }
+}
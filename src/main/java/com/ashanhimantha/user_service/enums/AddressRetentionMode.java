@@ -0,0 +1,13 @@
+package com.ashanhimantha.user_service.enums;
+
+/**
+ * What happens to soft-deleted addresses once they are past the retention period.
+ */
+public enum AddressRetentionMode {
+    /** Kept in {@code addresses} indefinitely. */
+    OFF,
+    /** Moved to {@code addresses_archive}. */
+    ARCHIVE,
+    /** Deleted. */
+    PURGE;
+}
@@ -0,0 +1,32 @@
+package com.ashanhimantha.user_service.enums;
+
+/**
+ * Cognito APIs that are rate limited separately. Each one gets its own token bucket in the call governor;
+ * the default rates follow the Cognito default quotas and can be overridden per operation with
+ * {@code cognito.governor.<property-key>.rate}.
+ */
+public enum CognitoOperation {
+    LIST_USERS("list-users", 30),
+    LIST_USERS_IN_GROUP("list-users-in-group", 30),
+    LIST_GROUPS("list-groups", 20),
+    ADMIN_GET_USER("admin-get-user", 120),
+    ADMIN_LIST_GROUPS_FOR_USER("admin-list-groups-for-user", 120),
+    ADMIN_CREATE_USER("admin-create-user", 50),
+    ADMIN_USER_WRITE("admin-user-write", 25);
+
+    private final String propertyKey;
+    private final double defaultRatePerSecond;
+
+    CognitoOperation(String propertyKey, double defaultRatePerSecond) {
+        this.propertyKey = propertyKey;
+        this.defaultRatePerSecond = defaultRatePerSecond;
+    }
+
+    public String getPropertyKey() {
+        return propertyKey;
+    }
+
+    public double getDefaultRatePerSecond() {
+        return defaultRatePerSecond;
+    }
+}
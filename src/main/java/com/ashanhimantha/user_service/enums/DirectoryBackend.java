@@ -0,0 +1,11 @@
+package com.ashanhimantha.user_service.enums;
+
+/**
+ * Where user search, group lookups and paginated listing are answered from.
+ */
+public enum DirectoryBackend {
+    /** The per-replica in-memory {@code UserDirectory}. */
+    MEMORY,
+    /** The shared PostgreSQL read model ({@code users} / {@code user_groups}), queried with indexed SQL. */
+    POSTGRES;
+}
@@ -0,0 +1,11 @@
+package com.ashanhimantha.user_service.enums;
+
+/**
+ * How {@code listUsers} attaches group names to a page of users.
+ */
+public enum GroupResolutionMode {
+    /** Resolve groups only for the users on the returned page (directory first, then per-user lookups). */
+    PAGE,
+    /** Scan every group in the pool and join the page against the full membership map. */
+    POOL;
+}
@@ -0,0 +1,15 @@
+package com.ashanhimantha.user_service.event;
+
+import java.util.List;
+
+/**
+ * Published after users' addresses were added, updated or deleted, so anything holding a copy of those
+ * users' address lists can drop them. Single-address writes name one user; bulk writes name every user
+ * touched by a committed batch.
+ */
+public record AddressChangedEvent(List<String> userIds) {
+
+    public AddressChangedEvent(String userId) {
+        this(List.of(userId));
+    }
+}
@@ -0,0 +1,30 @@
+package com.ashanhimantha.user_service.event;
+
+/**
+ * Marks change events that are being replayed from another replica rather than raised by a mutation on
+ * this one. Listeners use it to skip work the originating replica has already done (writing shared state,
+ * broadcasting the event again).
+ */
+public final class ChangeOrigin {
+
+    private static final ThreadLocal<Boolean> REPLICATED = ThreadLocal.withInitial(() -> false);
+
+    private ChangeOrigin() {
+    }
+
+    public static boolean isReplicated() {
+        return REPLICATED.get();
+    }
+
+    /**
+     * Runs the action with every event it publishes marked as replicated.
+     */
+    public static void runReplicated(Runnable action) {
+        REPLICATED.set(true);
+        try {
+            action.run();
+        } finally {
+            REPLICATED.remove();
+        }
+    }
+}
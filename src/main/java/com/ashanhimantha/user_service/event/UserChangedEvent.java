@@ -0,0 +1,35 @@
+package com.ashanhimantha.user_service.event;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+
+/**
+ * Published after a mutation has been accepted by Cognito, so every local copy of the user (profile cache,
+ * sub->username cache, directory, read model) can be brought up to date in the same request instead of
+ * waiting for the next sync. Events carry the change itself; listeners apply it to whatever copy they hold.
+ */
+public sealed interface UserChangedEvent {
+
+    String username();
+
+    /**
+     * The full, freshly read profile of a created or re-read user.
+     */
+    record Upserted(CognitoUserResponse user) implements UserChangedEvent {
+        @Override
+        public String username() {
+            return user.getUsername();
+        }
+    }
+
+    record GroupMembershipChanged(String username, String group, boolean added) implements UserChangedEvent {
+    }
+
+    record StatusChanged(String username, boolean enabled) implements UserChangedEvent {
+    }
+
+    /**
+     * The user no longer exists in the pool. {@code userId} is the sub, when known.
+     */
+    record Removed(String username, String userId) implements UserChangedEvent {
+    }
+}
@@ -0,0 +1,21 @@
+package com.ashanhimantha.user_service.exception;
+
+import com.ashanhimantha.user_service.enums.CognitoOperation;
+
+/**
+ * Thrown when a Cognito call could not be admitted within the queueing bound,
+ * or was still throttled by Cognito after all retries.
+ */
+public class CognitoThrottledException extends RuntimeException {
+
+    private final CognitoOperation operation;
+
+    public CognitoThrottledException(CognitoOperation operation, String message, Throwable cause) {
+        super(message, cause);
+        this.operation = operation;
+    }
+
+    public CognitoOperation getOperation() {
+        return operation;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ashanhimantha.user_service.exception;
+
+/**
+ * Thrown when Cognito has no user with the requested username or sub.
+ */
+public class CognitoUserNotFoundException extends RuntimeException {
+
+    public CognitoUserNotFoundException(String message) {
+        super(message);
+    }
+}
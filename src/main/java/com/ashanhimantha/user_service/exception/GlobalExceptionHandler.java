@@ -2,6 +2,7 @@ package com.ashanhimantha.user_service.exception;
 
 import com.ashanhimantha.user_service.dto.response.ApiResponse;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.AccessDeniedException;
@@ -45,6 +46,16 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error("Validation failed: " + message));
     }
 
+    /**
+     * Handles invalid input detected in the service layer (bad ids, malformed search cursors).
+     * Returns a 400 Bad Request.
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiResponse<Object>> handleIllegalArgument(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest()
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
     /**
      * Handles our specific business rule violation when trying to modify a SuperAdmin.
      * Returns a 403 Forbidden.
@@ -55,6 +66,37 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage()));
     }
 
+    /**
+     * Handles Cognito calls that the call governor could not admit, or that stayed throttled after retries.
+     * Returns a 429 Too Many Requests so clients back off instead of treating it as a server fault.
+     */
+    @ExceptionHandler(CognitoThrottledException.class)
+    public ResponseEntity<ApiResponse<Object>> handleCognitoThrottled(CognitoThrottledException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(ApiResponse.error("The identity provider is busy, please retry shortly."));
+    }
+
+    /**
+     * Handles identity provider calls that did not complete within their time bound.
+     * Returns a 504 Gateway Timeout rather than blaming the request.
+     */
+    @ExceptionHandler(UpstreamTimeoutException.class)
+    public ResponseEntity<ApiResponse<Object>> handleUpstreamTimeout(UpstreamTimeoutException ex) {
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                .body(ApiResponse.error("The identity provider did not respond in time, please retry shortly."));
+    }
+
+    /**
+     * Handles a user that Cognito does not know.
+     * Returns a 404 Not Found.
+     */
+    @ExceptionHandler(CognitoUserNotFoundException.class)
+    public ResponseEntity<ApiResponse<Object>> handleCognitoUserNotFound(CognitoUserNotFoundException ex) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+
     /**
      * Handles errors when a user is not found in Cognito or another resource is missing.
      * Catches any RuntimeException whose message contains "not found".
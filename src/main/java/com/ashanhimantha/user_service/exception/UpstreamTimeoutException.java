@@ -0,0 +1,11 @@
+package com.ashanhimantha.user_service.exception;
+
+/**
+ * Thrown when a call to the identity provider did not complete within its time bound.
+ */
+public class UpstreamTimeoutException extends RuntimeException {
+
+    public UpstreamTimeoutException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -2,8 +2,13 @@ package com.ashanhimantha.user_service.repository;
 
 import com.ashanhimantha.user_service.entity.Address;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,5 +21,34 @@ public interface AddressRepository extends JpaRepository<Address, Long> {
 
     Optional<Address> findByIdAndUserId(Long id, String userId);
 
-    void deleteByIdAndUserId(Long addressId, String userId); // Ensures user owns the address before "deleting"
-}
\ No newline at end of file
+    /**
+     * Active addresses of several users in one {@code user_id IN (...)} query. Callers keep the collection
+     * bounded; see {@code address.lookup.chunk-size}.
+     */
+    List<Address> findByUserIdInOrderByUserIdAscIdAsc(Collection<String> userIds);
+
+    /**
+     * Updates an active address only if it belongs to the user, in one statement.
+     *
+     * @return the updated address, or empty if there is no such active address for this user
+     */
+    @Transactional
+    @Query(value = "UPDATE addresses SET street = :street, city = :city, state = :state, " +
+            "postal_code = :postalCode, country = :country " +
+            "WHERE id = :id AND user_id = :userId AND active RETURNING *", nativeQuery = true)
+    Optional<Address> updateByIdAndUserId(@Param("id") Long id, @Param("userId") String userId,
+                                          @Param("street") String street, @Param("city") String city,
+                                          @Param("state") String state, @Param("postalCode") String postalCode,
+                                          @Param("country") String country);
+
+    /**
+     * Soft-deletes an active address only if it belongs to the user, in one statement.
+     *
+     * @return the number of rows deleted: 1, or 0 if there is no such active address for this user
+     */
+    @Modifying(clearAutomatically = true)
+    @Transactional
+    @Query(value = "UPDATE addresses SET active = false, deleted_at = now() " +
+            "WHERE id = :id AND user_id = :userId AND active", nativeQuery = true)
+    int deleteByIdAndUserId(@Param("id") Long addressId, @Param("userId") String userId);
+}
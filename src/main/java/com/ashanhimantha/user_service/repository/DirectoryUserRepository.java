@@ -0,0 +1,27 @@
+package com.ashanhimantha.user_service.repository;
+
+import com.ashanhimantha.user_service.entity.DirectoryUser;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+
+@Repository
+public interface DirectoryUserRepository extends JpaRepository<DirectoryUser, String>, JpaSpecificationExecutor<DirectoryUser> {
+
+    /**
+     * Members of any of the given groups whose username sorts after {@code afterUsername}, in username order.
+     * Pass an empty string to start from the beginning.
+     */
+    @Query("SELECT DISTINCT u FROM DirectoryUser u JOIN u.groups g " +
+            "WHERE g IN :groupNames AND u.username > :afterUsername ORDER BY u.username")
+    List<DirectoryUser> findByAnyGroupAfter(@Param("groupNames") Collection<String> groupNames,
+                                            @Param("afterUsername") String afterUsername,
+                                            Limit limit);
+}
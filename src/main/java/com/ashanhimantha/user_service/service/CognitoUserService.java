@@ -2,17 +2,45 @@ package com.ashanhimantha.user_service.service;
 
 import com.ashanhimantha.user_service.dto.request.CreateAdminUserRequest;
 import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.enums.CognitoOperation;
+import com.ashanhimantha.user_service.enums.GroupResolutionMode;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.ashanhimantha.user_service.exception.CognitoUserNotFoundException;
+import com.ashanhimantha.user_service.service.cognito.CognitoCallGovernor;
+import com.ashanhimantha.user_service.service.directory.SearchCriteria;
+import com.ashanhimantha.user_service.service.directory.SearchCursor;
+import com.ashanhimantha.user_service.service.directory.UserDirectory;
+import com.ashanhimantha.user_service.service.readmodel.UserReadModel;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import software.amazon.awssdk.core.retry.RetryMode;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.core.retry.RetryUtils;
+import software.amazon.awssdk.core.retry.conditions.RetryCondition;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderAsyncClient;
 import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.*;
 
 import java.lang.UnsupportedOperationException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class CognitoUserService {
@@ -20,16 +48,66 @@ public class CognitoUserService {
     private static final Logger logger = LoggerFactory.getLogger(CognitoUserService.class);
 
     private final CognitoIdentityProviderClient cognitoClient;
+    private final CognitoIdentityProviderAsyncClient cognitoAsyncClient;
     private final String userPoolId;
+    private final UserDirectory userDirectory;
+    private final UserReadModel readModel;
+    private volatile boolean readModelPopulated;
+    private final CognitoCallGovernor governor;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration directoryMaxStaleness;
+    private final ReentrantLock directoryRefreshLock = new ReentrantLock();
+    private final GroupResolutionMode listUsersGroupResolution;
+    private final ExecutorService groupLookupExecutor;
+    private final int groupScanConcurrency;
 
     public record PaginatedUserResponse(List<CognitoUserResponse> users, String nextToken) {}
 
     public CognitoUserService(@Value("${aws.cognito.userPoolId}") String userPoolId,
-                              @Value("${aws.region}") String awsRegion) {
+                              @Value("${aws.region}") String awsRegion,
+                              @Value("${directory.max-staleness-ms:900000}") long directoryMaxStalenessMs,
+                              @Value("${cognito.list-users.group-resolution:PAGE}") GroupResolutionMode listUsersGroupResolution,
+                              @Value("${cognito.group-lookup.concurrency:8}") int groupLookupConcurrency,
+                              @Value("${cognito.group-scan.concurrency:4}") int groupScanConcurrency,
+                              UserDirectory userDirectory,
+                              UserReadModel readModel,
+                              CognitoCallGovernor governor,
+                              ApplicationEventPublisher eventPublisher) {
         this.userPoolId = userPoolId;
+        this.userDirectory = userDirectory;
+        this.readModel = readModel;
+        this.governor = governor;
+        this.eventPublisher = eventPublisher;
+        this.directoryMaxStaleness = Duration.ofMillis(directoryMaxStalenessMs);
+        this.listUsersGroupResolution = listUsersGroupResolution;
+        this.groupLookupExecutor = Executors.newFixedThreadPool(groupLookupConcurrency, daemonThreads("cognito-group-lookup-"));
+        this.groupScanConcurrency = groupScanConcurrency;
         this.cognitoClient = CognitoIdentityProviderClient.builder()
                 .region(Region.of(awsRegion))
+                .overrideConfiguration(config -> config.retryPolicy(transientErrorsOnlyRetryPolicy()))
                 .build();
+        this.cognitoAsyncClient = CognitoIdentityProviderAsyncClient.builder()
+                .region(Region.of(awsRegion))
+                .overrideConfiguration(config -> config.retryPolicy(transientErrorsOnlyRetryPolicy()))
+                .build();
+    }
+
+    /**
+     * The SDK still retries transient network/5xx errors, but throttling is left to the
+     * {@link CognitoCallGovernor} so backoff and rate adaptation happen in one place.
+     */
+    private static RetryPolicy transientErrorsOnlyRetryPolicy() {
+        RetryCondition sdkDefault = RetryCondition.defaultRetryCondition();
+        return RetryPolicy.builder(RetryMode.STANDARD)
+                .retryCondition(context -> !RetryUtils.isThrottlingException(context.exception()) && sdkDefault.shouldRetry(context))
+                .build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        groupLookupExecutor.shutdownNow();
+        cognitoClient.close();
+        cognitoAsyncClient.close();
     }
 
     // === UNCHANGED METHODS (getUserProfileByUsername, createAdminUser, etc.) ===
@@ -41,11 +119,11 @@ public class CognitoUserService {
                     .userPoolId(userPoolId)
                     .username(username)
                     .build();
-            AdminGetUserResponse response = cognitoClient.adminGetUser(request);
+            AdminGetUserResponse response = governor.call(CognitoOperation.ADMIN_GET_USER, () -> cognitoClient.adminGetUser(request));
             List<String> groups = getGroupsForUser(username);
             return mapToCognitoUserResponse(response, groups);
         } catch (UserNotFoundException e) {
-            throw new RuntimeException("User not found: " + username);
+            throw new CognitoUserNotFoundException("User not found: " + username);
         } catch (CognitoIdentityProviderException e) {
             throw new RuntimeException("Failed to fetch user from Cognito", e);
         }
@@ -66,11 +144,13 @@ public class CognitoUserService {
                     .desiredDeliveryMediums(DeliveryMediumType.EMAIL)
                     .build();
 
-            AdminCreateUserResponse createUserResponse = cognitoClient.adminCreateUser(createUserRequest);
+            AdminCreateUserResponse createUserResponse = governor.call(CognitoOperation.ADMIN_CREATE_USER, () -> cognitoClient.adminCreateUser(createUserRequest));
             UserType createdUser = createUserResponse.user();
             String groupName = request.getRole().name();
             addUserToGroup(createdUser.username(), groupName);
-            return getUserProfileByUsername(createdUser.username());
+            CognitoUserResponse created = getUserProfileByUsername(createdUser.username());
+            eventPublisher.publishEvent(new UserChangedEvent.Upserted(created));
+            return created;
         } catch (UsernameExistsException e) {
             throw new RuntimeException("A user with this email already exists.");
         } catch (CognitoIdentityProviderException e) {
@@ -89,7 +169,7 @@ public class CognitoUserService {
             for (String role : rolesToAdd) addUserToGroup(username, role);
             for (String role : rolesToRemove) removeUserFromGroup(username, role);
         } catch (UserNotFoundException e) {
-            throw new RuntimeException("User not found: " + username);
+            throw new CognitoUserNotFoundException("User not found: " + username);
         } catch (CognitoIdentityProviderException e) {
             throw new RuntimeException("Failed to update user roles: " + e.awsErrorDetails().errorMessage(), e);
         }
@@ -99,16 +179,17 @@ public class CognitoUserService {
         try {
             if (enable) {
                 AdminEnableUserRequest request = AdminEnableUserRequest.builder().userPoolId(userPoolId).username(username).build();
-                cognitoClient.adminEnableUser(request);
+                governor.call(CognitoOperation.ADMIN_USER_WRITE, () -> cognitoClient.adminEnableUser(request));
             } else {
                 if (getGroupsForUser(username).contains("SuperAdmins")) {
                     throw new UnsupportedOperationException("Security Violation: Cannot disable a SuperAdmin user.");
                 }
                 AdminDisableUserRequest request = AdminDisableUserRequest.builder().userPoolId(userPoolId).username(username).build();
-                cognitoClient.adminDisableUser(request);
+                governor.call(CognitoOperation.ADMIN_USER_WRITE, () -> cognitoClient.adminDisableUser(request));
             }
+            eventPublisher.publishEvent(new UserChangedEvent.StatusChanged(username, enable));
         } catch (UserNotFoundException e) {
-            throw new RuntimeException("User not found: " + username);
+            throw new CognitoUserNotFoundException("User not found: " + username);
         } catch (UnsupportedOperationException e) {
             throw e;
         } catch (CognitoIdentityProviderException e) {
@@ -123,7 +204,7 @@ public class CognitoUserService {
                     .userPoolId(userPoolId)
                     .filter(filter)
                     .build();
-            ListUsersResponse response = cognitoClient.listUsers(request);
+            ListUsersResponse response = governor.call(CognitoOperation.LIST_USERS, () -> cognitoClient.listUsers(request));
             // This method might still be slow if the email returns many users.
             // For simplicity, we can reuse getGroupsForUser here, as the user count is expected to be small.
             return response.users().stream()
@@ -144,19 +225,23 @@ public class CognitoUserService {
 
     /**
      * [OPTIMIZED] Fetches a paginated list of all users from Cognito with their group info.
+     * In PAGE mode only the users on the returned page have their groups resolved, so the cost
+     * of a page depends on the page size rather than on the size of the pool.
      */
     public PaginatedUserResponse listUsers(int limit, String paginationToken) {
         try {
-            // Step 1: Fetch all group memberships efficiently.
-            Map<String, List<String>> userGroupMappings = fetchAllUserGroupMappings();
-
-            // Step 2: Fetch the requested page of users.
+            // Step 1: Fetch the requested page of users.
             ListUsersRequest request = ListUsersRequest.builder()
                     .userPoolId(userPoolId)
                     .limit(limit)
                     .paginationToken(paginationToken)
                     .build();
-            ListUsersResponse response = cognitoClient.listUsers(request);
+            ListUsersResponse response = governor.call(CognitoOperation.LIST_USERS, () -> cognitoClient.listUsers(request));
+
+            // Step 2: Resolve group memberships for the page (or for the whole pool in POOL mode).
+            Map<String, List<String>> userGroupMappings = listUsersGroupResolution == GroupResolutionMode.POOL
+                    ? fetchAllUserGroupMappings()
+                    : resolveGroupsForPage(response.users());
 
             // Step 3: Combine user data with the group map.
             List<CognitoUserResponse> userList = response.users().stream()
@@ -173,38 +258,126 @@ public class CognitoUserService {
     }
 
     /**
-     * [OPTIMIZED] Search users by multiple criteria using the efficient fetching strategy.
+     * Search users by multiple criteria against the in-memory user directory.
      */
     public List<CognitoUserResponse> searchUsers(String email, String firstName, String lastName, String username, String status, String role) {
         try {
-            // Fetch all users with their group information in an efficient manner.
-            List<CognitoUserResponse> allUsers = getAllUsersWithGroupInfo();
-
-            // Apply filters in memory (this is fast).
-            return allUsers.stream()
-                    .filter(user -> {
-                        if (email != null && !email.isEmpty() && (user.getEmail() == null || !user.getEmail().toLowerCase().contains(email.toLowerCase()))) return false;
-                        if (firstName != null && !firstName.isEmpty() && (user.getFirstName() == null || !user.getFirstName().toLowerCase().contains(firstName.toLowerCase()))) return false;
-                        if (lastName != null && !lastName.isEmpty() && (user.getLastName() == null || !user.getLastName().toLowerCase().contains(lastName.toLowerCase()))) return false;
-                        if (username != null && !username.isEmpty() && (user.getUsername() == null || !user.getUsername().toLowerCase().contains(username.toLowerCase()))) return false;
-                        if (status != null && !status.isEmpty() && (user.getStatus() == null || !user.getStatus().equalsIgnoreCase(status))) return false;
-                        if (role != null && !role.isEmpty()) {
-                            boolean roleMatch = user.getUserGroups() != null && user.getUserGroups().stream()
-                                    .anyMatch(userRole -> userRole.toLowerCase().contains(role.toLowerCase()));
-                            if (!roleMatch) return false;
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.toList());
-
+            ensureDirectoryFresh();
+            SearchCriteria criteria = new SearchCriteria(email, firstName, lastName, username, status, role);
+            return readModel.isEnabled() ? readModel.search(criteria) : userDirectory.search(criteria);
         } catch (CognitoIdentityProviderException e) {
             throw new RuntimeException("Failed to search users from Cognito: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * One page of {@link #searchUsers} results in username order. The returned token is an opaque
+     * cursor for the next page, or null on the last page.
+     */
+    public PaginatedUserResponse searchUsersPage(String email, String firstName, String lastName, String username, String status, String role,
+                                                 int limit, String cursor) {
+        String afterUsername = SearchCursor.decode(cursor);
+        ensureDirectoryFresh();
+        SearchCriteria criteria = new SearchCriteria(email, firstName, lastName, username, status, role);
+        List<CognitoUserResponse> page = readModel.isEnabled()
+                ? readModel.searchAfter(afterUsername, limit, criteria)
+                : userDirectory.searchAfter(afterUsername, limit, criteria);
+        if (page.size() <= limit) {
+            return new PaginatedUserResponse(page, null);
+        }
+        List<CognitoUserResponse> users = page.subList(0, limit);
+        return new PaginatedUserResponse(users, SearchCursor.encode(users.get(limit - 1).getUsername()));
+    }
+
+    /**
+     * Streaming variant of {@link #searchUsers}: matches are produced lazily as the directory is walked.
+     */
+    public Stream<CognitoUserResponse> streamSearchUsers(String email, String firstName, String lastName, String username, String status, String role) {
+        ensureDirectoryFresh();
+        SearchCriteria criteria = new SearchCriteria(email, firstName, lastName, username, status, role);
+        return readModel.isEnabled() ? readModel.streamSearch(criteria) : userDirectory.streamSearch(criteria);
+    }
+
+    /**
+     * Rebuilds the user directory from a full scan of the pool.
+     * Concurrent callers share a single rebuild instead of each scanning Cognito.
+     * Users changed through this service while the scan runs keep their written state.
+     */
+    public void refreshDirectory() {
+        directoryRefreshLock.lock();
+        try {
+            long started = System.currentTimeMillis();
+            Instant scanStarted = Instant.now();
+            Set<String> changedDuringScan = userDirectory.beginRefresh();
+            List<CognitoUserResponse> allUsers = getAllUsersWithGroupInfo();
+            userDirectory.replaceAll(allUsers);
+            if (readModel.isEnabled()) {
+                readModel.replaceAll(allUsers, scanStarted, changedDuringScan);
+                readModelPopulated = true;
+            }
+            logger.info("User directory refreshed to version {} with {} users in {} ms",
+                    userDirectory.getVersion(), allUsers.size(), System.currentTimeMillis() - started);
+        } finally {
+            userDirectory.endRefresh();
+            directoryRefreshLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the directory inline if it was never loaded or is older than the configured staleness bound.
+     * A loaded directory keeps serving while a rebuild is already running (e.g. the catch-up after restoring
+     * a snapshot), so queries do not queue behind a full scan.
+     */
+    private void ensureDirectoryFresh() {
+        if (userDirectory.isFresh(directoryMaxStaleness)) {
+            return;
+        }
+        // The shared read model is kept current by whichever replicas refresh; a populated one is served as is.
+        if (readModel.isEnabled() && (readModelPopulated || (readModelPopulated = readModel.isPopulated()))) {
+            return;
+        }
+        if (userDirectory.isLoaded() && directoryRefreshLock.isLocked()) {
+            return;
+        }
+        directoryRefreshLock.lock();
+        try {
+            // Another thread may have finished a rebuild while we were waiting for the lock.
+            if (userDirectory.isFresh(directoryMaxStaleness)) {
+                return;
+            }
+            refreshDirectory();
+        } finally {
+            directoryRefreshLock.unlock();
+        }
+    }
+
+    /**
+     * One raw ListUsers page (60 users, the maximum) for the background synchronizer. Groups are not
+     * resolved here; see {@link #getAllGroupMemberships()}.
+     */
+    public PaginatedUserResponse listUsersPage(String paginationToken) {
+        ListUsersRequest request = ListUsersRequest.builder()
+                .userPoolId(userPoolId)
+                .limit(60)
+                .paginationToken(paginationToken)
+                .build();
+        ListUsersResponse response = governor.call(CognitoOperation.LIST_USERS, () -> cognitoClient.listUsers(request));
+        List<CognitoUserResponse> users = response.users().stream()
+                .map(userType -> mapToCognitoUserResponse(userType, Collections.emptyList()))
+                .collect(Collectors.toList());
+        return new PaginatedUserResponse(users, response.paginationToken());
+    }
+
+    /**
+     * Every group membership in the pool, as {@code username -> groups}.
+     */
+    public Map<String, List<String>> getAllGroupMemberships() {
+        return fetchAllUserGroupMappings();
+    }
+
     /**
      * [NEW HELPER] Efficiently fetches all users with their group info.
-     * This replaces the old, inefficient `getAllUsers` method.
+     * Only used to (re)build the {@link UserDirectory}; request paths query the directory instead.
      */
     private List<CognitoUserResponse> getAllUsersWithGroupInfo() {
         // Step 1: Fetch all group memberships efficiently.
@@ -219,7 +392,7 @@ public class CognitoUserService {
                     .limit(60) // Max limit
                     .paginationToken(paginationToken)
                     .build();
-            ListUsersResponse response = cognitoClient.listUsers(request);
+            ListUsersResponse response = governor.call(CognitoOperation.LIST_USERS, () -> cognitoClient.listUsers(request));
             allCognitoUsers.addAll(response.users());
             paginationToken = response.paginationToken();
         } while (paginationToken != null);
@@ -235,37 +408,111 @@ public class CognitoUserService {
 
     /**
      * [NEW HELPER] Builds a map of `username -> List<groupName>` for all users.
-     * This is the key to the performance improvement.
+     * Groups are independent, so each group's member listing runs concurrently on the async client,
+     * with at most {@code cognito.group-scan.concurrency} groups in flight at once.
      */
     private Map<String, List<String>> fetchAllUserGroupMappings() {
-        Map<String, List<String>> userToGroupsMap = new HashMap<>();
+        Map<String, List<String>> userToGroupsMap = new ConcurrentHashMap<>();
 
         // 1. Get all groups in the user pool
-        ListGroupsResponse listGroupsResponse = cognitoClient.listGroups(ListGroupsRequest.builder().userPoolId(userPoolId).build());
-        List<GroupType> groups = listGroupsResponse.groups();
-
-        // 2. For each group, get all users in it
-        for (GroupType group : groups) {
-            String groupName = group.groupName();
-            String paginationToken = null;
-            do {
-                ListUsersInGroupRequest usersInGroupRequest = ListUsersInGroupRequest.builder()
-                        .userPoolId(userPoolId)
-                        .groupName(groupName)
-                        .nextToken(paginationToken)
-                        .build();
-                ListUsersInGroupResponse usersInGroupResponse = cognitoClient.listUsersInGroup(usersInGroupRequest);
-
-                // 3. Add each user to the map
-                for (UserType user : usersInGroupResponse.users()) {
-                    userToGroupsMap.computeIfAbsent(user.username(), k -> new ArrayList<>()).add(groupName);
-                }
-                paginationToken = usersInGroupResponse.nextToken();
-            } while (paginationToken != null);
+        List<String> groupNames = listAllGroupNames();
+
+        // 2. Scan every group's members concurrently, bounded by the semaphore.
+        Semaphore inFlight = new Semaphore(groupScanConcurrency);
+        List<CompletableFuture<Void>> scans = new ArrayList<>(groupNames.size());
+        for (String groupName : groupNames) {
+            inFlight.acquireUninterruptibly();
+            scans.add(scanGroupMembers(groupName, null, userToGroupsMap)
+                    .whenComplete((ignored, error) -> inFlight.release()));
+        }
+
+        try {
+            CompletableFuture.allOf(scans.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
         }
         return userToGroupsMap;
     }
 
+    private List<String> listAllGroupNames() {
+        List<String> groupNames = new ArrayList<>();
+        String nextToken = null;
+        do {
+            ListGroupsRequest request = ListGroupsRequest.builder()
+                    .userPoolId(userPoolId)
+                    .nextToken(nextToken)
+                    .build();
+            ListGroupsResponse response = governor.call(CognitoOperation.LIST_GROUPS, () -> cognitoClient.listGroups(request));
+            response.groups().forEach(group -> groupNames.add(group.groupName()));
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+        return groupNames;
+    }
+
+    /**
+     * Walks one group's member pages, chaining each page request onto the previous response.
+     */
+    private CompletableFuture<Void> scanGroupMembers(String groupName, String nextToken, Map<String, List<String>> userToGroupsMap) {
+        ListUsersInGroupRequest request = ListUsersInGroupRequest.builder()
+                .userPoolId(userPoolId)
+                .groupName(groupName)
+                .nextToken(nextToken)
+                .build();
+        return governor.callAsync(CognitoOperation.LIST_USERS_IN_GROUP, () -> cognitoAsyncClient.listUsersInGroup(request)).thenCompose(response -> {
+            // 3. Add each user to the map; compute() keeps the per-user list update atomic.
+            for (UserType user : response.users()) {
+                userToGroupsMap.compute(user.username(), (username, groups) -> {
+                    List<String> merged = groups != null ? groups : new ArrayList<>();
+                    merged.add(groupName);
+                    return merged;
+                });
+            }
+            return response.nextToken() == null
+                    ? CompletableFuture.completedFuture(null)
+                    : scanGroupMembers(groupName, response.nextToken(), userToGroupsMap);
+        });
+    }
+
+
+    /**
+     * Resolves groups for just the given users: from the directory when it is fresh, otherwise with
+     * per-user AdminListGroupsForUser calls run with bounded concurrency.
+     */
+    private Map<String, List<String>> resolveGroupsForPage(List<UserType> pageUsers) {
+        Map<String, List<String>> groupsByUsername = new HashMap<>();
+        Map<String, CompletableFuture<List<String>>> lookups = new LinkedHashMap<>();
+        boolean directoryUsable = userDirectory.isFresh(directoryMaxStaleness);
+
+        for (UserType user : pageUsers) {
+            Optional<List<String>> known = directoryUsable ? userDirectory.groupsOf(user.username()) : Optional.empty();
+            if (known.isPresent()) {
+                groupsByUsername.put(user.username(), known.get());
+            } else {
+                lookups.put(user.username(), CompletableFuture.supplyAsync(() -> getGroupsForUser(user.username()), groupLookupExecutor));
+            }
+        }
+
+        try {
+            lookups.forEach((username, lookup) -> groupsByUsername.put(username, lookup.join()));
+        } catch (CompletionException e) {
+            lookups.values().forEach(lookup -> lookup.cancel(true));
+            throw unwrap(e);
+        }
+        return groupsByUsername;
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        return e.getCause() instanceof RuntimeException cause ? cause : e;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
 
     // --- UNCHANGED PRIVATE HELPERS ---
 
@@ -273,7 +520,7 @@ public class CognitoUserService {
         try {
             AdminListGroupsForUserRequest request = AdminListGroupsForUserRequest.builder()
                     .userPoolId(userPoolId).username(username).build();
-            AdminListGroupsForUserResponse response = cognitoClient.adminListGroupsForUser(request);
+            AdminListGroupsForUserResponse response = governor.call(CognitoOperation.ADMIN_LIST_GROUPS_FOR_USER, () -> cognitoClient.adminListGroupsForUser(request));
             return response.groups().stream().map(GroupType::groupName).collect(Collectors.toList());
         } catch (CognitoIdentityProviderException e) {
             logger.error("Failed to fetch groups for user {}: {}", username, e.awsErrorDetails().errorMessage());
@@ -283,12 +530,14 @@ public class CognitoUserService {
 
     private void addUserToGroup(String username, String groupName) {
         AdminAddUserToGroupRequest request = AdminAddUserToGroupRequest.builder().userPoolId(userPoolId).username(username).groupName(groupName).build();
-        cognitoClient.adminAddUserToGroup(request);
+        governor.call(CognitoOperation.ADMIN_USER_WRITE, () -> cognitoClient.adminAddUserToGroup(request));
+        eventPublisher.publishEvent(new UserChangedEvent.GroupMembershipChanged(username, groupName, true));
     }
 
     private void removeUserFromGroup(String username, String groupName) {
         AdminRemoveUserFromGroupRequest request = AdminRemoveUserFromGroupRequest.builder().userPoolId(userPoolId).username(username).groupName(groupName).build();
-        cognitoClient.adminRemoveUserFromGroup(request);
+        governor.call(CognitoOperation.ADMIN_USER_WRITE, () -> cognitoClient.adminRemoveUserFromGroup(request));
+        eventPublisher.publishEvent(new UserChangedEvent.GroupMembershipChanged(username, groupName, false));
     }
 
     private CognitoUserResponse mapToCognitoUserResponse(AdminGetUserResponse cognitoUser, List<String> groups) {
@@ -335,11 +584,11 @@ public class CognitoUserService {
                     .limit(1) // We only expect one result
                     .build();
 
-            ListUsersResponse response = cognitoClient.listUsers(request);
+            ListUsersResponse response = governor.call(CognitoOperation.LIST_USERS, () -> cognitoClient.listUsers(request));
 
             if (response.users() == null || response.users().isEmpty()) {
                 logger.warn("Could not find a user with ID (sub): {}", userId);
-                throw new RuntimeException("User not found with ID: " + userId);
+                throw new CognitoUserNotFoundException("User not found with ID: " + userId);
             }
 
             // Return the username of the first (and only) user found
@@ -358,21 +607,26 @@ public class CognitoUserService {
      * This is used to fetch specific categories of users, like "employees".
      */
     public List<CognitoUserResponse> findUsersByGroups(List<String> groupNamesToFind) {
-        // Step 1: Get all users with their group info efficiently.
-        List<CognitoUserResponse> allUsers = getAllUsersWithGroupInfo();
-
-        // Step 2: Filter the list in memory.
-        return allUsers.stream()
-                .filter(user -> {
-                    // Check if the user has any groups assigned at all.
-                    if (user.getUserGroups() == null || user.getUserGroups().isEmpty()) {
-                        return false;
-                    }
-                    // Check if the user's groups have any overlap with the groups we're looking for.
-                    // !Collections.disjoint returns true if the lists share at least one element.
-                    return !Collections.disjoint(user.getUserGroups(), groupNamesToFind);
-                })
-                .collect(Collectors.toList());
+        ensureDirectoryFresh();
+        return readModel.isEnabled() ? readModel.findByAnyGroup(groupNamesToFind) : userDirectory.findByAnyGroup(groupNamesToFind);
+    }
+
+    public Stream<CognitoUserResponse> streamUsersByGroups(List<String> groupNamesToFind) {
+        ensureDirectoryFresh();
+        return readModel.isEnabled() ? readModel.streamByAnyGroup(groupNamesToFind) : userDirectory.streamByAnyGroup(groupNamesToFind);
     }
-}
 
+    /**
+     * Members of the employee groups ({@code directory.employee-groups}), served from the directory's
+     * incrementally maintained employee view.
+     */
+    public List<CognitoUserResponse> findEmployeeUsers() {
+        ensureDirectoryFresh();
+        return readModel.isEnabled() ? readModel.findByAnyGroup(userDirectory.getEmployeeGroups()) : userDirectory.findEmployees();
+    }
+
+    public Stream<CognitoUserResponse> streamEmployeeUsers() {
+        ensureDirectoryFresh();
+        return readModel.isEnabled() ? readModel.streamByAnyGroup(userDirectory.getEmployeeGroups()) : userDirectory.streamEmployees();
+    }
+}
\ No newline at end of file
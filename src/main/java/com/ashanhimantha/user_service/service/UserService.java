@@ -6,23 +6,30 @@ import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
 import com.ashanhimantha.user_service.entity.Address;
 import com.ashanhimantha.user_service.service.CognitoUserService.PaginatedUserResponse;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public abstract class UserService {
 
     // === Cognito User Management ===
     public abstract CognitoUserResponse getCognitoUserProfile(String userId);
+    public abstract CognitoUserResponse getProfileFromClaims(Map<String, Object> claims);
     public abstract PaginatedUserResponse getAllCognitoUsers(int limit, String nextToken);
     public abstract CognitoUserResponse createCognitoAdminUser(CreateAdminUserRequest request);
     public abstract void syncCognitoUserRoles(String userId, List<String> newRoles);
     public abstract void updateCognitoUserStatus(String userId, boolean enable);
     public abstract List<CognitoUserResponse> searchCognitoUsersByEmail(String email);
     public abstract List<CognitoUserResponse> searchCognitoUsers(String email, String firstName, String lastName, String username, String status, String role);
+    public abstract PaginatedUserResponse searchCognitoUsersPage(String email, String firstName, String lastName, String username, String status, String role, int limit, String cursor);
+    public abstract Stream<CognitoUserResponse> streamCognitoUsers(String email, String firstName, String lastName, String username, String status, String role);
 
     // === Local Address Management ===
     public abstract Address addAddressForUser(String userId, AddressRequest addressRequest);
     public abstract List<Address> getAddressesForUser(String userId);
+    public abstract Map<String, List<Address>> getAddressesForUsers(Collection<String> userIds);
     public abstract Optional<Address> updateUserAddress(String userId, Long addressId, AddressRequest addressRequest);
     public abstract boolean deleteUserAddress(String userId, Long addressId);
 
@@ -43,4 +50,5 @@ public abstract class UserService {
     }
 
     public abstract List<CognitoUserResponse> getEmployeeUsers();
+    public abstract Stream<CognitoUserResponse> streamEmployeeUsers();
 }
\ No newline at end of file
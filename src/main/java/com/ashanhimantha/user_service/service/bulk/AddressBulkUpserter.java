@@ -0,0 +1,246 @@
+package com.ashanhimantha.user_service.service.bulk;
+
+import com.ashanhimantha.user_service.dto.request.AddressUpsertRequest;
+import com.ashanhimantha.user_service.dto.response.AddressUpsertResult;
+import com.ashanhimantha.user_service.dto.response.AddressUpsertResult.Status;
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.ashanhimantha.user_service.service.cache.AddressCache;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Bulk create/update of addresses (legacy migrations, partner feeds) without going through JPA.
+ * <p>
+ * Input is read one row at a time from a JSON array or NDJSON stream of {@link AddressUpsertRequest}s and
+ * validated against the same constraints as a single {@code AddressRequest}; a row that does not parse or
+ * validate is reported and skipped. Valid rows are written every {@code address.bulk.batch-size} rows, one
+ * transaction per batch: new addresses get ids reserved from the {@code addresses} sequence in one round
+ * trip and go out as a JDBC batch insert (a multi-row insert with {@code reWriteBatchedInserts=true}), and
+ * updates as a JDBC batch of ownership-checked {@code UPDATE}s. Memory stays bounded by one batch however
+ * long the input is.
+ * <p>
+ * Results are handed to the caller in input order as each batch commits. A batch that fails is rolled back
+ * and all its rows are reported {@link Status#FAILED}; batches committed before it stay written.
+ */
+@Service
+public class AddressBulkUpserter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AddressBulkUpserter.class);
+
+    private static final String RESERVE_IDS = "SELECT nextval(pg_get_serial_sequence('addresses', 'id')) FROM generate_series(1, ?)";
+
+    private static final String INSERT = "INSERT INTO addresses (id, active, user_id, street, city, state, postal_code, country) " +
+            "VALUES (?, true, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE = "UPDATE addresses SET street = ?, city = ?, state = ?, postal_code = ?, country = ? " +
+            "WHERE id = ? AND user_id = ? AND active";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader reader;
+    private final Validator validator;
+    private final Cache addressCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+
+    public AddressBulkUpserter(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               Validator validator,
+                               CacheManager cacheManager,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${address.bulk.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reader = objectMapper.readerFor(AddressUpsertRequest.class);
+        this.validator = validator;
+        this.addressCache = cacheManager.getCache(AddressCache.NAME);
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Reads, validates and writes every row of {@code input}, passing one result per row to {@code results}.
+     * Malformed JSON ends the input: the rows before it are written and the malformed row is reported invalid.
+     * If reading or {@code results} fails midway, batches already committed stay written and the rest is not.
+     */
+    public void upsert(InputStream input, Consumer<AddressUpsertResult> results) throws IOException {
+        long started = System.nanoTime();
+        Map<Status, Long> totals = new EnumMap<>(Status.class);
+        Consumer<AddressUpsertResult> counted = result -> {
+            totals.merge(result.status(), 1L, Long::sum);
+            results.accept(result);
+        };
+        List<Row> batch = new ArrayList<>(batchSize);
+        long position = 0;
+        try (MappingIterator<AddressUpsertRequest> rows = reader.readValues(input)) {
+            while (true) {
+                if (batch.size() >= batchSize) {
+                    flush(batch, counted);
+                }
+                long next = position + 1;
+                AddressUpsertRequest request;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    request = rows.nextValue();
+                } catch (JsonParseException e) {
+                    batch.add(Row.invalid(next, "Malformed JSON: " + e.getOriginalMessage()));
+                    break;
+                } catch (JsonMappingException e) {
+                    // The iterator skips to the next row.
+                    position = next;
+                    batch.add(Row.invalid(position, "Unreadable row: " + e.getOriginalMessage()));
+                    continue;
+                }
+                position = next;
+                batch.add(new Row(position, request, validate(request)));
+            }
+            flush(batch, counted);
+        } finally {
+            long rowCount = totals.values().stream().mapToLong(Long::longValue).sum();
+            double seconds = Math.max((System.nanoTime() - started) / 1e9, 1e-3);
+            logger.info("Bulk address upsert: {} rows in {} s ({} rows/s), {}", rowCount,
+                    String.format("%.1f", seconds), Math.round(rowCount / seconds), totals);
+        }
+    }
+
+    private List<String> validate(AddressUpsertRequest request) {
+        if (request == null) {
+            return List.of("Row is empty");
+        }
+        return validator.validate(request).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .toList();
+    }
+
+    private void flush(List<Row> batch, Consumer<AddressUpsertResult> results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Row> inserts = new ArrayList<>();
+        List<Row> updates = new ArrayList<>();
+        for (Row row : batch) {
+            if (row.status == null) {
+                (row.request.getId() == null ? inserts : updates).add(row);
+            }
+        }
+        try {
+            transactionTemplate.executeWithoutResult(transaction -> write(inserts, updates));
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("Bulk address batch of {} rows failed: {}", inserts.size() + updates.size(), e.getMessage());
+            List<String> errors = List.of("Batch failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            inserts.forEach(row -> row.fail(errors));
+            updates.forEach(row -> row.fail(errors));
+        }
+        batch.forEach(row -> results.accept(row.toResult()));
+        batch.clear();
+    }
+
+    private void write(List<Row> inserts, List<Row> updates) {
+        Set<String> changedUsers = new LinkedHashSet<>();
+        if (!inserts.isEmpty()) {
+            List<Long> ids = jdbcTemplate.queryForList(RESERVE_IDS, Long.class, inserts.size());
+            for (int i = 0; i < inserts.size(); i++) {
+                inserts.get(i).id = ids.get(i);
+            }
+            jdbcTemplate.batchUpdate(INSERT, inserts, inserts.size(), (statement, row) -> {
+                AddressUpsertRequest request = row.request;
+                statement.setLong(1, row.id);
+                statement.setString(2, request.getUserId());
+                statement.setString(3, request.getStreet());
+                statement.setString(4, request.getCity());
+                statement.setString(5, request.getState());
+                statement.setString(6, request.getPostalCode());
+                statement.setString(7, request.getCountry());
+            });
+            for (Row row : inserts) {
+                row.status = Status.CREATED;
+                changedUsers.add(row.request.getUserId());
+            }
+        }
+        if (!updates.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE, updates, updates.size(), (statement, row) -> {
+                AddressUpsertRequest request = row.request;
+                statement.setString(1, request.getStreet());
+                statement.setString(2, request.getCity());
+                statement.setString(3, request.getState());
+                statement.setString(4, request.getPostalCode());
+                statement.setString(5, request.getCountry());
+                statement.setLong(6, request.getId());
+                statement.setString(7, request.getUserId());
+            })[0];
+            for (int i = 0; i < updates.size(); i++) {
+                Row row = updates.get(i);
+                row.id = row.request.getId();
+                row.status = counts[i] == 0 ? Status.NOT_FOUND : Status.UPDATED;
+                if (row.status == Status.UPDATED) {
+                    changedUsers.add(row.request.getUserId());
+                }
+            }
+        }
+        if (!changedUsers.isEmpty()) {
+            // The cache is transaction-aware: these evictions happen once the batch has committed.
+            changedUsers.forEach(addressCache::evict);
+            eventPublisher.publishEvent(new AddressChangedEvent(List.copyOf(changedUsers)));
+        }
+    }
+
+    private static final class Row {
+        private final long position;
+        private final AddressUpsertRequest request;
+        private List<String> errors;
+        private Status status;
+        private Long id;
+
+        private Row(long position, AddressUpsertRequest request, List<String> errors) {
+            this.position = position;
+            this.request = request;
+            this.errors = errors;
+            this.status = errors.isEmpty() ? null : Status.INVALID;
+        }
+
+        private static Row invalid(long position, String error) {
+            return new Row(position, null, List.of(error));
+        }
+
+        private void fail(List<String> failure) {
+            status = Status.FAILED;
+            errors = failure;
+            id = null;
+        }
+
+        private AddressUpsertResult toResult() {
+            return new AddressUpsertResult(position, status, request == null ? null : request.getUserId(), id, errors);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ashanhimantha.user_service.service.cache;
+
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.ashanhimantha.user_service.event.ChangeOrigin;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * The {@code addresses} Spring cache: each user's active addresses, keyed by userId (the Cognito sub).
+ * Local writes evict through {@code @CacheEvict} on the service; this component evicts for writes made
+ * on other replicas, which arrive as replicated {@link AddressChangedEvent}s, and logs the cache's stats.
+ */
+@Component
+public class AddressCache {
+
+    public static final String NAME = "addresses";
+
+    private static final Logger logger = LoggerFactory.getLogger(AddressCache.class);
+
+    private final Cache cache;
+
+    public AddressCache(CacheManager cacheManager) {
+        this.cache = cacheManager.getCache(NAME);
+    }
+
+    @EventListener
+    public void onAddressChanged(AddressChangedEvent event) {
+        if (ChangeOrigin.isReplicated() && event.userIds() != null) {
+            event.userIds().forEach(cache::evict);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cache.stats-log-interval-ms:300000}",
+            initialDelayString = "${cache.stats-log-interval-ms:300000}")
+    public void logStats() {
+        Cache target = cache instanceof TransactionAwareCacheDecorator decorator ? decorator.getTargetCache() : cache;
+        if (target.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            CacheStats stats = caffeine.stats();
+            logger.info("addresses cache: size={}, hits={}, misses={}, hitRate={}, evictions={}",
+                    caffeine.estimatedSize(), stats.hitCount(), stats.missCount(),
+                    String.format("%.3f", stats.hitRate()), stats.evictionCount());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ashanhimantha.user_service.service.cache;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.service.UserService;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+/**
+ * Short-lived cache of full Cognito profiles, used to fill in fields a JWT does not carry.
+ * Loads and refreshes run in the background; readers never wait on Cognito.
+ */
+@Component
+public class ProfileCache implements MeterBinder {
+
+    private final ExecutorService refreshExecutor;
+    private final AsyncLoadingCache<String, CognitoUserResponse> profilesByUserId;
+
+    public ProfileCache(ObjectProvider<UserService> userService,
+                        @Value("${profile.cache.maximum-size:50000}") long maximumSize,
+                        @Value("${profile.cache.ttl-ms:120000}") long ttlMs,
+                        @Value("${profile.cache.refresh-after-ms:30000}") long refreshAfterMs,
+                        @Value("${profile.cache.refresh-concurrency:4}") int refreshConcurrency) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("profile-refresh-");
+        threadFactory.setDaemon(true);
+        this.refreshExecutor = Executors.newFixedThreadPool(refreshConcurrency, threadFactory);
+        this.profilesByUserId = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .refreshAfterWrite(Duration.ofMillis(refreshAfterMs))
+                .executor(refreshExecutor)
+                .recordStats()
+                .buildAsync(userId -> userService.getObject().getCognitoUserProfile(userId));
+    }
+
+    /**
+     * Returns the cached profile if one is already loaded. A miss or a stale entry schedules a background
+     * load; failed loads are dropped by the cache and retried on the next access.
+     */
+    public Optional<CognitoUserResponse> getIfLoaded(String userId) {
+        CompletableFuture<CognitoUserResponse> profile = profilesByUserId.get(userId);
+        if (profile.isDone() && !profile.isCompletedExceptionally()) {
+            return Optional.ofNullable(profile.join());
+        }
+        return Optional.empty();
+    }
+
+    public void put(String userId, CognitoUserResponse profile) {
+        profilesByUserId.put(userId, CompletableFuture.completedFuture(profile));
+    }
+
+    public void evict(String userId) {
+        profilesByUserId.synchronous().invalidate(userId);
+    }
+
+    /**
+     * Applies a change to a loaded profile in place. A load still in flight may predate the change, so it
+     * is dropped instead and the next access loads again.
+     */
+    public void update(String userId, UnaryOperator<CognitoUserResponse> change) {
+        profilesByUserId.asMap().computeIfPresent(userId, (id, profile) ->
+                profile.isDone() && !profile.isCompletedExceptionally()
+                        ? CompletableFuture.completedFuture(change.apply(profile.join()))
+                        : null);
+    }
+
+    /**
+     * Drops every cached profile for the username. A scan, for the rare change whose sub is not known locally.
+     */
+    public void evictUsername(String username) {
+        profilesByUserId.synchronous().asMap().values()
+                .removeIf(profile -> Objects.equals(profile.getUsername(), username));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, profilesByUserId, "profiles");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refreshExecutor.shutdownNow();
+    }
+}
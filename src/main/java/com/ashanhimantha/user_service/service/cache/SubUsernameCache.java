@@ -0,0 +1,76 @@
+package com.ashanhimantha.user_service.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of Cognito {@code sub} (our userId) to Cognito username.
+ * A user's sub never changes, so entries only need to go when the user is deleted;
+ * the size bound and long TTL are there to cap memory, not for correctness.
+ * Hit, miss and eviction counts are published as the {@code sub-username} cache metrics.
+ */
+@Component
+public class SubUsernameCache implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubUsernameCache.class);
+
+    private final Cache<String, String> usernamesBySub;
+
+    public SubUsernameCache(@Value("${cache.sub-username.maximum-size:100000}") long maximumSize,
+                            @Value("${cache.sub-username.ttl-hours:24}") long ttlHours) {
+        this.usernamesBySub = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofHours(ttlHours))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the cached username for the sub, loading it with the given function on a miss.
+     * Concurrent misses for the same sub share one load.
+     */
+    public String getUsername(String sub, Function<String, String> loader) {
+        return usernamesBySub.get(sub, loader);
+    }
+
+    public void put(String sub, String username) {
+        usernamesBySub.put(sub, username);
+    }
+
+    public void evict(String sub) {
+        usernamesBySub.invalidate(sub);
+    }
+
+    public CacheStats stats() {
+        return usernamesBySub.stats();
+    }
+
+    public long size() {
+        return usernamesBySub.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, usernamesBySub, "sub-username");
+    }
+
+    @Scheduled(fixedDelayString = "${cache.stats-log-interval-ms:300000}",
+            initialDelayString = "${cache.stats-log-interval-ms:300000}")
+    public void logStats() {
+        CacheStats stats = stats();
+        logger.info("sub->username cache: size={}, hits={}, misses={}, hitRate={}, evictions={}",
+                size(), stats.hitCount(), stats.missCount(), String.format("%.3f", stats.hitRate()), stats.evictionCount());
+    }
+}
@@ -0,0 +1,136 @@
+package com.ashanhimantha.user_service.service.cache;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.event.ChangeOrigin;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.ashanhimantha.user_service.service.directory.UserDirectory;
+import com.ashanhimantha.user_service.service.readmodel.UserReadModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+/**
+ * Writes {@link UserChangedEvent}s through to every local copy of the user: the {@link UserDirectory} and
+ * {@link UserReadModel} (search, group and employee queries), the {@link ProfileCache} and the
+ * {@link SubUsernameCache}. Runs synchronously on the mutating request, so a read that follows an admin
+ * edit sees it.
+ * <p>
+ * Copies are keyed by username (directory, read model) or by sub (caches); the sub is taken from the event
+ * or from the directory. If it cannot be resolved, profiles are dropped by username instead. A copy that
+ * cannot be updated is evicted rather than left stale. Events replicated from another replica are applied to
+ * the local copies only; the shared read model was already written by the replica that made the change.
+ */
+@Component
+public class UserChangeApplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeApplier.class);
+
+    private final UserDirectory userDirectory;
+    private final UserReadModel readModel;
+    private final ProfileCache profileCache;
+    private final SubUsernameCache subUsernameCache;
+
+    public UserChangeApplier(UserDirectory userDirectory, UserReadModel readModel,
+                             ProfileCache profileCache, SubUsernameCache subUsernameCache) {
+        this.userDirectory = userDirectory;
+        this.readModel = readModel;
+        this.profileCache = profileCache;
+        this.subUsernameCache = subUsernameCache;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        try {
+            if (event instanceof UserChangedEvent.Upserted upserted) {
+                apply(upserted.user());
+            } else if (event instanceof UserChangedEvent.GroupMembershipChanged membership) {
+                modify(membership.username(), user -> {
+                    List<String> groups = new ArrayList<>(user.getUserGroups() == null ? List.of() : user.getUserGroups());
+                    groups.remove(membership.group());
+                    if (membership.added()) {
+                        groups.add(membership.group());
+                    }
+                    user.setUserGroups(groups);
+                    return user;
+                });
+            } else if (event instanceof UserChangedEvent.StatusChanged status) {
+                modify(status.username(), user -> {
+                    user.setStatus(status.enabled() ? "ENABLED" : "DISABLED");
+                    return user;
+                });
+            } else if (event instanceof UserChangedEvent.Removed removed) {
+                remove(removed.username(), removed.userId());
+            }
+        } catch (RuntimeException e) {
+            // Cognito already holds the change; never fail the request over a local copy.
+            logger.warn("Failed to apply change for user {}, evicting cached profile: {}", event.username(), e.getMessage());
+            profileCache.evictUsername(event.username());
+        }
+    }
+
+    private void apply(CognitoUserResponse user) {
+        userDirectory.upsert(user);
+        if (readModel.isEnabled() && !ChangeOrigin.isReplicated()) {
+            readModel.upsert(user);
+        }
+        if (user.getId() != null) {
+            subUsernameCache.put(user.getId(), user.getUsername());
+            profileCache.put(user.getId(), user);
+        }
+    }
+
+    private void remove(String username, String userId) {
+        String sub = userId != null ? userId : userDirectory.get(username).map(CognitoUserResponse::getId).orElse(null);
+        userDirectory.remove(username);
+        if (sub == null) {
+            profileCache.evictUsername(username);
+            return;
+        }
+        if (readModel.isEnabled() && !ChangeOrigin.isReplicated()) {
+            readModel.remove(sub);
+        }
+        subUsernameCache.evict(sub);
+        profileCache.evict(sub);
+    }
+
+    private void modify(String username, UnaryOperator<CognitoUserResponse> change) {
+        Optional<CognitoUserResponse> known = userDirectory.get(username);
+        if (known.isEmpty()) {
+            // Not mirrored yet (e.g. created moments ago); the next sync or Upserted event brings it in.
+            profileCache.evictUsername(username);
+            return;
+        }
+        CognitoUserResponse updated = change.apply(known.get());
+        userDirectory.upsert(updated);
+        if (readModel.isEnabled() && !ChangeOrigin.isReplicated()) {
+            readModel.upsert(updated);
+        }
+        if (updated.getId() != null) {
+            profileCache.update(updated.getId(), cached -> change.apply(copyOf(cached)));
+        } else {
+            profileCache.evictUsername(username);
+        }
+    }
+
+    private static CognitoUserResponse copyOf(CognitoUserResponse user) {
+        CognitoUserResponse copy = new CognitoUserResponse();
+        copy.setId(user.getId());
+        copy.setUsername(user.getUsername());
+        copy.setEmail(user.getEmail());
+        copy.setFirstName(user.getFirstName());
+        copy.setLastName(user.getLastName());
+        copy.setPhone(user.getPhone());
+        copy.setEmailVerified(user.isEmailVerified());
+        copy.setStatus(user.getStatus());
+        copy.setCreatedDate(user.getCreatedDate());
+        copy.setLastModifiedDate(user.getLastModifiedDate());
+        copy.setUserGroups(user.getUserGroups());
+        return copy;
+    }
+}
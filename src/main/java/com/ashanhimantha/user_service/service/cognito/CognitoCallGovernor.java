@@ -0,0 +1,256 @@
+package com.ashanhimantha.user_service.service.cognito;
+
+import com.ashanhimantha.user_service.enums.CognitoOperation;
+import com.ashanhimantha.user_service.exception.CognitoThrottledException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.retry.RetryUtils;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single entry point for every Cognito SDK call.
+ * <p>
+ * Each {@link CognitoOperation} has its own token bucket. A call that finds its bucket empty is queued
+ * for up to {@code cognito.governor.max-queue-wait-ms} instead of failing. If Cognito still throttles,
+ * the bucket's rate is reduced and the call is retried with exponential backoff and full jitter.
+ * <p>
+ * Every SDK attempt is timed as {@code cognito.client.requests} tagged by operation and outcome
+ * (success, error, throttled); queue waits, throttles, rejections, queue depth and the adaptive
+ * rate are published per operation as well.
+ */
+@Component
+public class CognitoCallGovernor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CognitoCallGovernor.class);
+
+    private static final String TAG_OPERATION = "operation";
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_ERROR = "error";
+    private static final String OUTCOME_THROTTLED = "throttled";
+
+    private final Map<CognitoOperation, TokenBucket> buckets = new EnumMap<>(CognitoOperation.class);
+    private final Map<CognitoOperation, AtomicInteger> queueDepths = new EnumMap<>(CognitoOperation.class);
+    private final Map<CognitoOperation, AtomicLong> throttleCounts = new EnumMap<>(CognitoOperation.class);
+    private final Map<CognitoOperation, AtomicLong> rejectionCounts = new EnumMap<>(CognitoOperation.class);
+
+    private final long maxQueueWaitNanos;
+    private final int maxAttempts;
+    private final long baseBackoffMs;
+    private final long maxBackoffMs;
+    private final MeterRegistry meterRegistry;
+
+    public CognitoCallGovernor(Environment environment, MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(environment.getProperty("cognito.governor.max-queue-wait-ms", Long.class, 2000L));
+        this.maxAttempts = environment.getProperty("cognito.governor.max-attempts", Integer.class, 5);
+        this.baseBackoffMs = environment.getProperty("cognito.governor.base-backoff-ms", Long.class, 100L);
+        this.maxBackoffMs = environment.getProperty("cognito.governor.max-backoff-ms", Long.class, 5000L);
+        double minRateFraction = environment.getProperty("cognito.governor.min-rate-fraction", Double.class, 0.1);
+
+        long now = System.nanoTime();
+        for (CognitoOperation operation : CognitoOperation.values()) {
+            double rate = environment.getProperty("cognito.governor." + operation.getPropertyKey() + ".rate",
+                    Double.class, operation.getDefaultRatePerSecond());
+            buckets.put(operation, new TokenBucket(rate, minRateFraction, now));
+            queueDepths.put(operation, new AtomicInteger());
+            throttleCounts.put(operation, new AtomicLong());
+            rejectionCounts.put(operation, new AtomicLong());
+        }
+    }
+
+    /**
+     * Runs a blocking Cognito call under the operation's rate limit, retrying throttled attempts.
+     */
+    public <T> T call(CognitoOperation operation, Supplier<T> call) {
+        TokenBucket bucket = buckets.get(operation);
+        for (int attempt = 1; ; attempt++) {
+            sleepNanos(reserve(operation));
+            long started = System.nanoTime();
+            try {
+                T result = call.get();
+                recordAttempt(operation, started, OUTCOME_SUCCESS);
+                bucket.onSuccess();
+                return result;
+            } catch (SdkException e) {
+                if (!RetryUtils.isThrottlingException(e)) {
+                    recordAttempt(operation, started, OUTCOME_ERROR);
+                    throw e;
+                }
+                recordAttempt(operation, started, OUTCOME_THROTTLED);
+                onThrottled(operation, attempt, e);
+                sleepNanos(TimeUnit.MILLISECONDS.toNanos(backoffWithJitter(attempt)));
+            }
+        }
+    }
+
+    /**
+     * Async variant of {@link #call}: waits for tokens and backoff on delayed executors instead of blocking a thread.
+     */
+    public <T> CompletableFuture<T> callAsync(CognitoOperation operation, Supplier<CompletableFuture<T>> call) {
+        return callAsync(operation, call, 1);
+    }
+
+    private <T> CompletableFuture<T> callAsync(CognitoOperation operation, Supplier<CompletableFuture<T>> call, int attempt) {
+        long waitNanos;
+        try {
+            waitNanos = reserve(operation);
+        } catch (CognitoThrottledException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        TokenBucket bucket = buckets.get(operation);
+        long[] started = new long[1];
+        return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS))
+                .thenCompose(ignored -> {
+                    started[0] = System.nanoTime();
+                    return call.get();
+                })
+                .thenApply(result -> {
+                    recordAttempt(operation, started[0], OUTCOME_SUCCESS);
+                    bucket.onSuccess();
+                    return result;
+                })
+                .exceptionallyCompose(error -> {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (!(cause instanceof SdkException sdkException) || !RetryUtils.isThrottlingException(sdkException)) {
+                        if (started[0] != 0) {
+                            recordAttempt(operation, started[0], OUTCOME_ERROR);
+                        }
+                        return CompletableFuture.failedFuture(cause);
+                    }
+                    recordAttempt(operation, started[0], OUTCOME_THROTTLED);
+                    try {
+                        onThrottled(operation, attempt, sdkException);
+                    } catch (CognitoThrottledException e) {
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    return CompletableFuture.runAsync(() -> {},
+                                    CompletableFuture.delayedExecutor(backoffWithJitter(attempt), TimeUnit.MILLISECONDS))
+                            .thenCompose(ignored -> callAsync(operation, call, attempt + 1));
+                });
+    }
+
+    public int getQueueDepth(CognitoOperation operation) {
+        return queueDepths.get(operation).get();
+    }
+
+    public long getThrottleCount(CognitoOperation operation) {
+        return throttleCounts.get(operation).get();
+    }
+
+    public long getRejectionCount(CognitoOperation operation) {
+        return rejectionCounts.get(operation).get();
+    }
+
+    public double getCurrentRate(CognitoOperation operation) {
+        return buckets.get(operation).currentRate();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (CognitoOperation operation : CognitoOperation.values()) {
+            Tags tags = Tags.of(TAG_OPERATION, operation.getPropertyKey());
+            Gauge.builder("cognito.governor.queue.depth", queueDepths.get(operation), AtomicInteger::get)
+                    .tags(tags).description("Calls waiting for a rate limit slot").register(registry);
+            Gauge.builder("cognito.governor.rate", this, governor -> governor.getCurrentRate(operation))
+                    .tags(tags).description("Current adaptive request rate (per second)").register(registry);
+            FunctionCounter.builder("cognito.governor.throttles", throttleCounts.get(operation), AtomicLong::get)
+                    .tags(tags).description("Calls throttled by Cognito").register(registry);
+            FunctionCounter.builder("cognito.governor.rejections", rejectionCounts.get(operation), AtomicLong::get)
+                    .tags(tags).description("Calls rejected because the queue wait bound was exceeded").register(registry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${cognito.governor.stats-log-interval-ms:60000}",
+            initialDelayString = "${cognito.governor.stats-log-interval-ms:60000}")
+    public void logStats() {
+        for (CognitoOperation operation : CognitoOperation.values()) {
+            long throttles = getThrottleCount(operation);
+            long rejections = getRejectionCount(operation);
+            if (throttles > 0 || rejections > 0) {
+                logger.info("Cognito {}: rate={}/s, queueDepth={}, throttles={}, rejections={}", operation,
+                        String.format("%.1f", getCurrentRate(operation)), getQueueDepth(operation), throttles, rejections);
+            }
+        }
+    }
+
+    /**
+     * Reserves a token, counting the caller as queued until its reserved slot arrives.
+     */
+    private long reserve(CognitoOperation operation) {
+        long waitNanos = buckets.get(operation).reserve(maxQueueWaitNanos, System.nanoTime());
+        if (waitNanos < 0) {
+            rejectionCounts.get(operation).incrementAndGet();
+            throw new CognitoThrottledException(operation,
+                    "Cognito rate limit reached for " + operation + "; request could not be queued", null);
+        }
+        Timer.builder("cognito.governor.queue.wait")
+                .tag(TAG_OPERATION, operation.getPropertyKey())
+                .register(meterRegistry)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos > 0) {
+            AtomicInteger depth = queueDepths.get(operation);
+            depth.incrementAndGet();
+            CompletableFuture.delayedExecutor(waitNanos, TimeUnit.NANOSECONDS).execute(depth::decrementAndGet);
+        }
+        return waitNanos;
+    }
+
+    private void recordAttempt(CognitoOperation operation, long startedNanos, String outcome) {
+        Timer.builder("cognito.client.requests")
+                .description("Cognito SDK call latency per attempt")
+                .tag(TAG_OPERATION, operation.getPropertyKey())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void onThrottled(CognitoOperation operation, int attempt, SdkException e) {
+        throttleCounts.get(operation).incrementAndGet();
+        buckets.get(operation).onThrottled();
+        if (attempt >= maxAttempts) {
+            throw new CognitoThrottledException(operation,
+                    "Cognito throttled " + operation + " after " + attempt + " attempts", e);
+        }
+        logger.debug("Cognito throttled {} on attempt {}, backing off", operation, attempt);
+    }
+
+    /**
+     * Exponential backoff with full jitter: uniform in [0, min(max, base * 2^(attempt-1))].
+     */
+    private long backoffWithJitter(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a Cognito rate limit slot", e);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.ashanhimantha.user_service.service.cognito;
+
+/**
+ * Token bucket with reservations and an adaptive rate.
+ * <p>
+ * Callers reserve a token and are told how long to wait for it; tokens may go negative,
+ * which queues later callers behind earlier ones. When Cognito throttles, the rate is halved
+ * (never below {@code minRateFraction} of the configured rate) and then recovers additively on success.
+ */
+class TokenBucket {
+
+    private static final double RECOVERY_STEP_FRACTION = 0.05;
+
+    private final double configuredRate;
+    private final double minRate;
+    private final double capacity;
+
+    private double rate;
+    private double tokens;
+    private long lastRefillNanos;
+
+    TokenBucket(double ratePerSecond, double minRateFraction, long nowNanos) {
+        this.configuredRate = ratePerSecond;
+        this.minRate = ratePerSecond * minRateFraction;
+        this.capacity = Math.max(1, ratePerSecond);
+        this.rate = ratePerSecond;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * Reserves one token.
+     *
+     * @return nanoseconds the caller must wait before using the token, or -1 if that wait would exceed {@code maxWaitNanos}
+     */
+    synchronized long reserve(long maxWaitNanos, long nowNanos) {
+        refill(nowNanos);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long waitNanos = (long) ((1 - tokens) / rate * 1_000_000_000L);
+        if (waitNanos > maxWaitNanos) {
+            return -1;
+        }
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    synchronized void onThrottled() {
+        rate = Math.max(minRate, rate / 2);
+        // Drop any burst allowance so the reduced rate takes effect immediately.
+        tokens = Math.min(tokens, 0);
+    }
+
+    synchronized void onSuccess() {
+        if (rate < configuredRate) {
+            rate = Math.min(configuredRate, rate + configuredRate * RECOVERY_STEP_FRACTION);
+        }
+    }
+
+    synchronized double currentRate() {
+        return rate;
+    }
+
+    private void refill(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * rate / 1_000_000_000L);
+            lastRefillNanos = nowNanos;
+        }
+    }
+}
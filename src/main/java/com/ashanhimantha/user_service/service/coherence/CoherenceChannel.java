@@ -0,0 +1,346 @@
+package com.ashanhimantha.user_service.service.coherence;
+
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.ashanhimantha.user_service.event.ChangeOrigin;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the per-replica user caches coherent across replicas over PostgreSQL {@code LISTEN/NOTIFY}.
+ * <p>
+ * Every {@link UserChangedEvent} and {@link AddressChangedEvent} raised on this replica is appended to
+ * {@code coherence_events} and announced with {@code pg_notify} in the same statement. An event raised inside
+ * a transaction is sent once it commits, so peers only hear about committed changes, on a connection of its
+ * own, so a failure to log it can never fail the caller's transaction. A listener thread on each replica
+ * republishes its peers' events locally, marked with {@link ChangeOrigin#runReplicated}, so they are applied
+ * to local caches but neither re-broadcast nor written to shared tables again.
+ * <p>
+ * A NOTIFY sent while a listener is disconnected is lost. Each replica numbers its messages, so a receiver
+ * that sees a sequence gap replays exactly the missing messages from the log, and a listener that reconnects
+ * replays everything logged since the last message it applied. Log rows are purged after
+ * {@code coherence.retention-ms}; anything older is left to the background directory sync.
+ */
+@Component
+public class CoherenceChannel implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoherenceChannel.class);
+
+    static final String CHANNEL = "user_service_coherence";
+
+    /** NOTIFY payloads are limited to 8000 bytes; larger messages are announced by id only. */
+    private static final int MAX_INLINE_PAYLOAD_BYTES = 7900;
+
+    private static final String APPEND_AND_NOTIFY = "WITH logged AS (INSERT INTO coherence_events (origin, seq, payload, created_at) " +
+            "VALUES (?, ?, ?, now()) RETURNING id) SELECT pg_notify(?, id || ':' || ?) FROM logged";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final long retentionMillis;
+    private final int pollMillis;
+
+    private final String origin = UUID.randomUUID().toString();
+    private final AtomicLong nextSeq = new AtomicLong();
+    private final Map<String, Long> lastSeqByOrigin = new ConcurrentHashMap<>();
+    private volatile long lastRowId;
+    private volatile boolean stopped;
+    private Thread listener;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong gaps = new AtomicLong();
+
+    public CoherenceChannel(DataSource dataSource, JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${coherence.enabled:true}") boolean enabled,
+                            @Value("${coherence.retention-ms:3600000}") long retentionMillis,
+                            @Value("${coherence.poll-ms:500}") int pollMillis) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.retentionMillis = retentionMillis;
+        this.pollMillis = pollMillis;
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (enabled && !ChangeOrigin.isReplicated()) {
+            afterCommit(() -> broadcast(CoherenceMessage.of(origin, nextSeq.incrementAndGet(), event)));
+        }
+    }
+
+    @EventListener
+    public void onAddressChanged(AddressChangedEvent event) {
+        if (enabled && !ChangeOrigin.isReplicated()) {
+            afterCommit(() -> broadcast(CoherenceMessage.of(origin, nextSeq.incrementAndGet(), event)));
+        }
+    }
+
+    /**
+     * Runs {@code send} once the current transaction commits (never, if it rolls back), or now if there is none.
+     * Sequence numbers are taken at send time, so a rolled-back change leaves no gap for peers to chase.
+     */
+    private static void afterCommit(Runnable send) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            send.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                send.run();
+            }
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!enabled || listener != null) {
+            return;
+        }
+        listener = new Thread(this::listen, "coherence-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        if (listener != null) {
+            listener.interrupt();
+            listener = null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${coherence.purge-interval-ms:600000}",
+            initialDelayString = "${coherence.purge-interval-ms:600000}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int purged = jdbcTemplate.update("DELETE FROM coherence_events WHERE created_at < ?",
+                    Timestamp.from(Instant.now().minusMillis(retentionMillis)));
+            if (purged > 0) {
+                logger.debug("Purged {} coherence events", purged);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Failed to purge coherence events: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("coherence.events", published, AtomicLong::get)
+                .tags(Tags.of("direction", "published")).description("Change events broadcast to other replicas").register(registry);
+        FunctionCounter.builder("coherence.events", received, AtomicLong::get)
+                .tags(Tags.of("direction", "received")).description("Change events applied from other replicas").register(registry);
+        FunctionCounter.builder("coherence.events", replayed, AtomicLong::get)
+                .tags(Tags.of("direction", "replayed")).description("Missed change events replayed from the log").register(registry);
+        FunctionCounter.builder("coherence.gaps", gaps, AtomicLong::get)
+                .description("Sequence gaps detected in another replica's events").register(registry);
+    }
+
+    /**
+     * Sends on a pooled connection of its own in auto-commit mode, never on one bound to a transaction:
+     * after commit, the caller's connection may still be bound, and a statement on it would not commit.
+     */
+    private void broadcast(CoherenceMessage message) {
+        try {
+            String payload = objectMapper.writeValueAsString(message);
+            String inline = payload.getBytes(StandardCharsets.UTF_8).length <= MAX_INLINE_PAYLOAD_BYTES ? payload : "";
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(APPEND_AND_NOTIFY)) {
+                connection.setAutoCommit(true);
+                statement.setString(1, origin);
+                statement.setLong(2, message.seq());
+                statement.setString(3, payload);
+                statement.setString(4, CHANNEL);
+                statement.setString(5, inline);
+                statement.executeQuery().close();
+            }
+            published.incrementAndGet();
+        } catch (JsonProcessingException | SQLException e) {
+            // Peers see a sequence gap they cannot replay and converge through the background sync.
+            logger.warn("Failed to broadcast {} change for {}: {}", message.kind(),
+                    message.username() != null ? message.username() : message.userId(), e.getMessage());
+        }
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (!stopped) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                PGConnection notifications = connection.unwrap(PGConnection.class);
+                if (reconnecting) {
+                    replayAfter(lastRowId);
+                } else {
+                    Long newest = jdbcTemplate.queryForObject("SELECT coalesce(max(id), 0) FROM coherence_events", Long.class);
+                    lastRowId = newest == null ? 0 : newest;
+                    reconnecting = true;
+                }
+                while (!stopped) {
+                    PGNotification[] batch = notifications.getNotifications(pollMillis);
+                    if (batch != null) {
+                        for (PGNotification notification : batch) {
+                            receiveSafely(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (stopped) {
+                    return;
+                }
+                logger.warn("Coherence listener disconnected, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(Math.max(pollMillis, 1000));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives one notification; a bad one is logged and skipped rather than stopping the listener.
+     * Database errors still propagate, so the listener reconnects.
+     */
+    private void receiveSafely(String notification) {
+        try {
+            receive(notification);
+        } catch (DataAccessException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring coherence notification that could not be applied: {}", e.toString());
+        }
+    }
+
+    private void receive(String notification) {
+        int separator = notification == null ? -1 : notification.indexOf(':');
+        long rowId;
+        try {
+            rowId = separator > 0 ? Long.parseLong(notification.substring(0, separator)) : -1;
+        } catch (NumberFormatException e) {
+            rowId = -1;
+        }
+        if (rowId < 0) {
+            logger.warn("Ignoring malformed coherence notification: {}", notification);
+            return;
+        }
+        String payload = notification.substring(separator + 1);
+        if (payload.isEmpty()) {
+            List<String> logged = jdbcTemplate.queryForList("SELECT payload FROM coherence_events WHERE id = ?", String.class, rowId);
+            if (logged.isEmpty()) {
+                return;
+            }
+            payload = logged.get(0);
+        }
+        CoherenceMessage message = parse(payload, rowId);
+        if (message == null || origin.equals(message.origin())) {
+            return;
+        }
+        Long last = lastSeqByOrigin.get(message.origin());
+        if (last != null && message.seq() > last + 1) {
+            gaps.incrementAndGet();
+            replayGap(message.origin(), last, message.seq());
+        }
+        apply(message);
+        received.incrementAndGet();
+    }
+
+    /**
+     * Replays the messages one replica sent between two sequence numbers that were both received.
+     */
+    private void replayGap(String sender, long after, long before) {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT id, payload FROM coherence_events WHERE origin = ? AND seq > ? AND seq < ? ORDER BY seq",
+                sender, after, before);
+        replay(rows);
+        long missing = before - after - 1 - rows.size();
+        if (missing > 0) {
+            logger.warn("{} events from replica {} are no longer in the coherence log; the background sync will reconcile them",
+                    missing, sender);
+        }
+    }
+
+    private void replayAfter(long rowId) {
+        replay(jdbcTemplate.queryForList("SELECT id, payload FROM coherence_events WHERE id > ? AND origin <> ? ORDER BY id",
+                rowId, origin));
+    }
+
+    private void replay(List<Map<String, Object>> rows) {
+        for (Map<String, Object> row : rows) {
+            CoherenceMessage message = parse((String) row.get("payload"), ((Number) row.get("id")).longValue());
+            if (message != null) {
+                apply(message);
+                replayed.incrementAndGet();
+            }
+        }
+    }
+
+    private void apply(CoherenceMessage message) {
+        lastSeqByOrigin.merge(message.origin(), message.seq(), Math::max);
+        lastRowId = Math.max(lastRowId, message.id());
+        Object event = message.toEvent();
+        if (event == null) {
+            return;
+        }
+        try {
+            ChangeOrigin.runReplicated(() -> eventPublisher.publishEvent(event));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to apply {} event from replica {}: {}", message.kind(), message.origin(), e.getMessage());
+        }
+    }
+
+    private CoherenceMessage parse(String payload, long rowId) {
+        try {
+            return objectMapper.readValue(payload, CoherenceMessage.class).withId(rowId);
+        } catch (JsonProcessingException e) {
+            logger.warn("Ignoring unreadable coherence event {}: {}", rowId, e.getMessage());
+            return null;
+        }
+    }
+}
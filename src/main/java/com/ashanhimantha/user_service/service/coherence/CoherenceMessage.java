@@ -0,0 +1,61 @@
+package com.ashanhimantha.user_service.service.coherence;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+
+import java.util.List;
+
+/**
+ * Wire form of a change event, sent as the NOTIFY payload and kept in {@code coherence_events}.
+ * {@code origin} identifies the sending replica and {@code seq} numbers its messages from 1 without gaps;
+ * {@code id} is the log row, filled in once the message has been written.
+ * Address changes carry {@code userIds}, since one bulk write covers many users.
+ */
+record CoherenceMessage(Long id, String origin, long seq, String kind, String username, String userId,
+                        String group, Boolean flag, CognitoUserResponse user, List<String> userIds) {
+
+    static final String USER_UPSERTED = "user-upserted";
+    static final String USER_GROUP = "user-group";
+    static final String USER_STATUS = "user-status";
+    static final String USER_REMOVED = "user-removed";
+    static final String ADDRESS_CHANGED = "address-changed";
+
+    static CoherenceMessage of(String origin, long seq, UserChangedEvent event) {
+        if (event instanceof UserChangedEvent.Upserted upserted) {
+            return new CoherenceMessage(null, origin, seq, USER_UPSERTED, upserted.username(), upserted.user().getId(),
+                    null, null, upserted.user(), null);
+        }
+        if (event instanceof UserChangedEvent.GroupMembershipChanged membership) {
+            return new CoherenceMessage(null, origin, seq, USER_GROUP, membership.username(), null,
+                    membership.group(), membership.added(), null, null);
+        }
+        if (event instanceof UserChangedEvent.Removed removed) {
+            return new CoherenceMessage(null, origin, seq, USER_REMOVED, removed.username(), removed.userId(), null, null, null, null);
+        }
+        UserChangedEvent.StatusChanged status = (UserChangedEvent.StatusChanged) event;
+        return new CoherenceMessage(null, origin, seq, USER_STATUS, status.username(), null, null, status.enabled(), null, null);
+    }
+
+    static CoherenceMessage of(String origin, long seq, AddressChangedEvent event) {
+        return new CoherenceMessage(null, origin, seq, ADDRESS_CHANGED, null, null, null, null, null, event.userIds());
+    }
+
+    CoherenceMessage withId(long rowId) {
+        return new CoherenceMessage(rowId, origin, seq, kind, username, userId, group, flag, user, userIds);
+    }
+
+    /**
+     * The event to publish on the receiving replica, or null for a kind this version does not know.
+     */
+    Object toEvent() {
+        return switch (kind) {
+            case USER_UPSERTED -> new UserChangedEvent.Upserted(user);
+            case USER_GROUP -> new UserChangedEvent.GroupMembershipChanged(username, group, flag);
+            case USER_STATUS -> new UserChangedEvent.StatusChanged(username, flag);
+            case USER_REMOVED -> new UserChangedEvent.Removed(username, userId);
+            case ADDRESS_CHANGED -> new AddressChangedEvent(userIds);
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,90 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * {@link SearchCriteria} compiled once per query into an ordered array of checks over rows of {@link UserColumns}.
+ * <p>
+ * Terms are normalized up front and every check compares against the row's pre-normalized fields or interned
+ * codes, so evaluating a user allocates nothing. Checks run most-selective first: status and role use the
+ * directory's value counts, and "contains" terms are estimated from their length (longer terms match fewer users).
+ */
+final class CompiledSearch implements IntPredicate {
+
+    private interface Check {
+        boolean test(UserColumns columns, int id);
+    }
+
+    private record RankedCheck(Check check, double selectivity) {
+    }
+
+    private final UserColumns columns;
+    private final Check[] checks;
+
+    private CompiledSearch(UserColumns columns, Check[] checks) {
+        this.columns = columns;
+        this.checks = checks;
+    }
+
+    @Override
+    public boolean test(int id) {
+        for (Check check : checks) {
+            if (!check.test(columns, id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean matchesAll() {
+        return checks.length == 0;
+    }
+
+    static CompiledSearch compile(SearchCriteria criteria, UserColumns columns) {
+        List<RankedCheck> ranked = new ArrayList<>(6);
+        double total = Math.max(1, columns.size());
+
+        String status = UserColumns.normalize(criteria.status());
+        if (status != null) {
+            BitSet codes = columns.statusCodesEqualTo(status);
+            ranked.add(new RankedCheck((c, id) -> codes.get(c.statusCode(id)),
+                    columns.usersWithStatus(codes) / total));
+        }
+
+        String role = UserColumns.normalize(criteria.role());
+        if (role != null) {
+            BitSet groups = columns.groupIdsContaining(role);
+            ranked.add(new RankedCheck((c, id) -> {
+                for (int group : c.groupIds(id)) {
+                    if (groups.get(group)) {
+                        return true;
+                    }
+                }
+                return false;
+            }, Math.min(1.0, columns.usersInGroups(groups) / total)));
+        }
+
+        for (SearchField field : SearchField.values()) {
+            addContains(ranked, field.termOf(criteria), field);
+        }
+
+        ranked.sort(Comparator.comparingDouble(RankedCheck::selectivity));
+        return new CompiledSearch(columns, ranked.stream().map(RankedCheck::check).toArray(Check[]::new));
+    }
+
+    private static void addContains(List<RankedCheck> ranked, String term, SearchField field) {
+        if (term == null) {
+            return;
+        }
+        Check check = (columns, id) -> {
+            String value = field.valueOf(columns, id);
+            return value != null && value.contains(term);
+        };
+        // Rough estimate: each extra character cuts the match rate by an order of magnitude.
+        ranked.add(new RankedCheck(check, Math.pow(0.1, Math.min(term.length(), 6))));
+    }
+}
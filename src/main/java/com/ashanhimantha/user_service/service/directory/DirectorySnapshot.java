@@ -0,0 +1,160 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Versioned binary format for a directory snapshot. All numbers are big-endian.
+ * <pre>
+ * int    magic ("USDR")
+ * int    format version
+ * long   directory version
+ * long   last full refresh, epoch millis
+ * int    group count, then each group name as a string; a row's group ids index this table
+ * int    user count, then per user:
+ *          sub, username, email, first name, last name, phone, status   (strings)
+ *          byte emailVerified, long createdAt, long lastModifiedAt    (epoch millis, or Long.MIN_VALUE)
+ *          int group count, then each group id as an int
+ * long   CRC32 of everything above
+ * string = int byte length (-1 for null) followed by UTF-8 bytes
+ * </pre>
+ * A reader rejects any other magic or format version, so a format change only needs a new version number:
+ * old snapshots are then ignored and the directory is built from Cognito instead.
+ */
+final class DirectorySnapshot {
+
+    static final int MAGIC = 0x55534452;
+    static final int FORMAT_VERSION = 1;
+
+    record Header(long directoryVersion, long refreshedAtMillis, int userCount) {
+    }
+
+    private DirectorySnapshot() {
+    }
+
+    /**
+     * Encodes the given rows, in iteration order.
+     */
+    static byte[] encode(UserColumns columns, Collection<Integer> ids, long directoryVersion, long refreshedAtMillis) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(1024, ids.size() * 160));
+        CRC32 crc = new CRC32();
+        try (DataOutputStream out = new DataOutputStream(new CheckedOutputStream(bytes, crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(directoryVersion);
+            out.writeLong(refreshedAtMillis);
+            out.writeInt(columns.groupCount());
+            for (int group = 0; group < columns.groupCount(); group++) {
+                writeString(out, columns.groupName(group));
+            }
+            out.writeInt(ids.size());
+            for (int id : ids) {
+                writeString(out, columns.sub(id));
+                writeString(out, columns.username(id));
+                writeString(out, columns.email(id));
+                writeString(out, columns.firstName(id));
+                writeString(out, columns.lastName(id));
+                writeString(out, columns.phone(id));
+                writeString(out, columns.status(id));
+                out.writeBoolean(columns.emailVerified(id));
+                out.writeLong(columns.createdAt(id));
+                out.writeLong(columns.lastModifiedAt(id));
+                int[] groups = columns.groupIds(id);
+                out.writeInt(groups.length);
+                for (int group : groups) {
+                    out.writeInt(group);
+                }
+            }
+            out.flush();
+            out.writeLong(crc.getValue());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode directory snapshot", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Validates the snapshot and adds every row it holds to {@code columns}.
+     *
+     * @throws IllegalStateException if the buffer is not a snapshot of this format version or is corrupt
+     */
+    static Header decode(ByteBuffer buffer, UserColumns columns) {
+        if (buffer.remaining() < 36) {
+            throw new IllegalStateException("Directory snapshot is truncated");
+        }
+        int checksumAt = buffer.limit() - Long.BYTES;
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().limit(checksumAt));
+        if (crc.getValue() != buffer.getLong(checksumAt)) {
+            throw new IllegalStateException("Directory snapshot checksum mismatch");
+        }
+
+        ByteBuffer in = buffer.duplicate().limit(checksumAt);
+        if (in.getInt() != MAGIC) {
+            throw new IllegalStateException("Not a directory snapshot");
+        }
+        int formatVersion = in.getInt();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IllegalStateException("Unsupported directory snapshot format version " + formatVersion);
+        }
+        long directoryVersion = in.getLong();
+        long refreshedAtMillis = in.getLong();
+
+        int groupCount = in.getInt();
+        List<String> groupNames = new ArrayList<>(groupCount);
+        for (int i = 0; i < groupCount; i++) {
+            groupNames.add(readString(in));
+        }
+
+        int userCount = in.getInt();
+        for (int i = 0; i < userCount; i++) {
+            String sub = readString(in);
+            String username = readString(in);
+            String email = readString(in);
+            String firstName = readString(in);
+            String lastName = readString(in);
+            String phone = readString(in);
+            String status = readString(in);
+            boolean emailVerified = in.get() != 0;
+            long createdAt = in.getLong();
+            long lastModifiedAt = in.getLong();
+            int memberships = in.getInt();
+            List<String> groups = new ArrayList<>(memberships);
+            for (int g = 0; g < memberships; g++) {
+                groups.add(groupNames.get(in.getInt()));
+            }
+            columns.add(sub, username, email, firstName, lastName, phone, status, emailVerified,
+                    createdAt, lastModifiedAt, groups);
+        }
+        return new Header(directoryVersion, refreshedAtMillis, userCount);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,114 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Keeps a {@link DirectorySnapshot} of the {@link UserDirectory} on local disk.
+ * <p>
+ * The snapshot is rewritten on a fixed delay whenever the directory version has moved, and once more on
+ * shutdown; writes go to a temporary file that is then atomically renamed over the previous snapshot.
+ * At boot the file is memory-mapped and decoded straight into the directory. Disabled when
+ * {@code directory.snapshot.path} is blank.
+ */
+@Component
+public class DirectorySnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectorySnapshotStore.class);
+
+    private final UserDirectory userDirectory;
+    private final Path snapshotPath;
+    private volatile long writtenVersion = -1;
+
+    public DirectorySnapshotStore(UserDirectory userDirectory,
+                                  @Value("${directory.snapshot.path:}") String snapshotPath) {
+        this.userDirectory = userDirectory;
+        this.snapshotPath = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+    }
+
+    public boolean isEnabled() {
+        return snapshotPath != null;
+    }
+
+    /**
+     * Loads the snapshot into the directory if one exists and is readable.
+     *
+     * @return true if the directory now holds the snapshot's contents
+     */
+    public boolean load() {
+        if (!isEnabled() || !Files.isReadable(snapshotPath)) {
+            return false;
+        }
+        long started = System.currentTimeMillis();
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                logger.warn("Ignoring directory snapshot {}: {} bytes is larger than a single mapping", snapshotPath, channel.size());
+                return false;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            DirectorySnapshot.Header header = userDirectory.restoreSnapshot(mapped);
+            if (header == null) {
+                return false;
+            }
+            writtenVersion = userDirectory.getVersion();
+            logger.info("User directory restored from snapshot {} with {} users (snapshot version {}, taken {}) in {} ms",
+                    snapshotPath, header.userCount(), header.directoryVersion(), userDirectory.getLastRefreshed(),
+                    System.currentTimeMillis() - started);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable directory snapshot {}: {}", snapshotPath, e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${directory.snapshot.interval-ms:600000}",
+            initialDelayString = "${directory.snapshot.interval-ms:600000}")
+    public void scheduledWrite() {
+        write();
+    }
+
+    @PreDestroy
+    public void writeOnShutdown() {
+        write();
+    }
+
+    /**
+     * Writes a snapshot if the directory is loaded and has changed since the last write.
+     */
+    public void write() {
+        long version = userDirectory.getVersion();
+        if (!isEnabled() || !userDirectory.isLoaded() || version == writtenVersion) {
+            return;
+        }
+        long started = System.currentTimeMillis();
+        try {
+            byte[] snapshot = userDirectory.encodeSnapshot();
+            Path directory = snapshotPath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, snapshotPath.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, snapshot);
+                Files.move(temporary, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+            writtenVersion = version;
+            logger.info("User directory snapshot version {} written to {} ({} bytes) in {} ms",
+                    version, snapshotPath, snapshot.length, System.currentTimeMillis() - started);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Failed to write user directory snapshot to {}: {}", snapshotPath, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+
+/**
+ * Group membership as one bitset of row ids per interned group id, plus an incrementally maintained bitset of
+ * "employees" (members of any configured employee group). Membership queries become bitset ORs instead of
+ * a scan over every user's groups. Not thread-safe: the {@link UserDirectory} serializes writers and
+ * excludes them from readers.
+ */
+final class GroupIndex {
+
+    private final UserColumns columns;
+    private final Set<String> employeeGroups;
+    private final List<BitSet> membersByGroupId = new ArrayList<>();
+    private final BitSet employees = new BitSet();
+
+    GroupIndex(UserColumns columns, Set<String> employeeGroups) {
+        this.columns = columns;
+        this.employeeGroups = employeeGroups;
+    }
+
+    void add(int id) {
+        for (int group : columns.groupIds(id)) {
+            while (membersByGroupId.size() <= group) {
+                membersByGroupId.add(new BitSet());
+            }
+            membersByGroupId.get(group).set(id);
+            if (employeeGroups.contains(columns.groupName(group))) {
+                employees.set(id);
+            }
+        }
+    }
+
+    /**
+     * Must be called before the row is cleared from the columns.
+     */
+    void remove(int id) {
+        for (int group : columns.groupIds(id)) {
+            membersByGroupId.get(group).clear(id);
+        }
+        employees.clear(id);
+    }
+
+    /**
+     * Members of any of the given groups (exact names).
+     */
+    BitSet membersOfAny(Collection<String> groupNames) {
+        BitSet result = new BitSet();
+        for (String groupName : groupNames) {
+            int group = columns.groupId(groupName);
+            if (group >= 0 && group < membersByGroupId.size()) {
+                result.or(membersByGroupId.get(group));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Members of any group whose normalized name contains the (already normalized) role term,
+     * matching the search API's role filter.
+     */
+    BitSet membersOfGroupsContaining(String role) {
+        BitSet result = new BitSet();
+        BitSet groups = columns.groupIdsContaining(role);
+        for (int group = groups.nextSetBit(0); group >= 0 && group < membersByGroupId.size(); group = groups.nextSetBit(group + 1)) {
+            result.or(membersByGroupId.get(group));
+        }
+        return result;
+    }
+
+    /**
+     * Live test for membership of any of the given groups (exact names), for checking rows as they are visited.
+     * Groups created after the call are not included.
+     */
+    IntPredicate memberOfAny(Collection<String> groupNames) {
+        List<BitSet> groups = new ArrayList<>(groupNames.size());
+        for (String groupName : groupNames) {
+            int group = columns.groupId(groupName);
+            if (group >= 0 && group < membersByGroupId.size()) {
+                groups.add(membersByGroupId.get(group));
+            }
+        }
+        return id -> {
+            for (BitSet members : groups) {
+                if (members.get(id)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    BitSet employees() {
+        return (BitSet) employees.clone();
+    }
+
+    boolean isEmployee(int id) {
+        return employees.get(id);
+    }
+}
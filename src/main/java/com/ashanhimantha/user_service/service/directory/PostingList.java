@@ -0,0 +1,69 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, duplicate-free list of directory ids. Ids are handed out mostly in increasing order,
+ * so most inserts append.
+ */
+final class PostingList {
+
+    private int[] ids = new int[4];
+    private int size;
+
+    void add(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Intersects this list with a sorted id array, returning a new sorted array.
+     */
+    int[] intersect(int[] sorted) {
+        int[] out = new int[Math.min(size, sorted.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < size && j < sorted.length) {
+            int a = ids[i], b = sorted[j];
+            if (a == b) {
+                out[n++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+}
@@ -0,0 +1,9 @@
+package com.ashanhimantha.user_service.service.directory;
+
+/**
+ * Raw search filters as received from the API. Null or blank fields do not filter.
+ * email, firstName, lastName, username and role match by case-insensitive "contains";
+ * status matches case-insensitively in full.
+ */
+public record SearchCriteria(String email, String firstName, String lastName, String username, String status, String role) {
+}
@@ -0,0 +1,37 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque search cursor. It wraps the last username returned, which is the directory's sort key,
+ * so the next page resumes strictly after it regardless of inserts or removals in between.
+ */
+public final class SearchCursor {
+
+    private static final String VERSION_PREFIX = "v1:";
+
+    private SearchCursor() {
+    }
+
+    public static String encode(String lastUsername) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((VERSION_PREFIX + lastUsername).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+        if (!decoded.startsWith(VERSION_PREFIX)) {
+            throw new IllegalArgumentException("Invalid search cursor");
+        }
+        return decoded.substring(VERSION_PREFIX.length());
+    }
+}
@@ -0,0 +1,45 @@
+package com.ashanhimantha.user_service.service.directory;
+
+/**
+ * Free-text fields that support "contains" search, with access to each row's normalized value.
+ */
+enum SearchField {
+    EMAIL {
+        @Override
+        String valueOf(UserColumns columns, int id) {
+            return columns.emailKey(id);
+        }
+    },
+    FIRST_NAME {
+        @Override
+        String valueOf(UserColumns columns, int id) {
+            return columns.firstNameKey(id);
+        }
+    },
+    LAST_NAME {
+        @Override
+        String valueOf(UserColumns columns, int id) {
+            return columns.lastNameKey(id);
+        }
+    },
+    USERNAME {
+        @Override
+        String valueOf(UserColumns columns, int id) {
+            return columns.usernameKey(id);
+        }
+    };
+
+    abstract String valueOf(UserColumns columns, int id);
+
+    /**
+     * The normalized query term for this field, or null when the criteria do not filter on it.
+     */
+    String termOf(SearchCriteria criteria) {
+        return UserColumns.normalize(switch (this) {
+            case EMAIL -> criteria.email();
+            case FIRST_NAME -> criteria.firstName();
+            case LAST_NAME -> criteria.lastName();
+            case USERNAME -> criteria.username();
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted trigram index over the normalized "contains" fields.
+ * <p>
+ * Each (field, trigram) pair maps to the row ids of users whose field value contains it. A term of three or
+ * more characters can only match entries that contain all of its trigrams, so the intersection of those
+ * posting lists is a superset of the matches that the caller then verifies. Not thread-safe: the
+ * {@link UserDirectory} serializes writers and excludes them from readers.
+ */
+final class TrigramIndex {
+
+    static final int GRAM = 3;
+
+    private final UserColumns columns;
+    private final Map<Long, PostingList> postings = new HashMap<>();
+
+    TrigramIndex(UserColumns columns) {
+        this.columns = columns;
+    }
+
+    void add(int id) {
+        for (SearchField field : SearchField.values()) {
+            for (long key : keysOf(field, field.valueOf(columns, id))) {
+                postings.computeIfAbsent(key, k -> new PostingList()).add(id);
+            }
+        }
+    }
+
+    /**
+     * Must be called before the row is cleared from the columns.
+     */
+    void remove(int id) {
+        for (SearchField field : SearchField.values()) {
+            for (long key : keysOf(field, field.valueOf(columns, id))) {
+                PostingList list = postings.get(key);
+                if (list != null) {
+                    list.remove(id);
+                    if (list.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Candidate ids for every indexable term in the criteria, intersected across terms and fields.
+     *
+     * @return sorted candidate ids, or null if no term is long enough to use the index
+     */
+    int[] candidates(SearchCriteria criteria) {
+        List<PostingList> lists = new ArrayList<>();
+        for (SearchField field : SearchField.values()) {
+            String term = field.termOf(criteria);
+            if (term == null || term.length() < GRAM) {
+                continue;
+            }
+            for (long key : keysOf(field, term)) {
+                PostingList list = postings.get(key);
+                if (list == null) {
+                    return new int[0];
+                }
+                lists.add(list);
+            }
+        }
+        if (lists.isEmpty()) {
+            return null;
+        }
+        // Start from the shortest list so every later intersection is bounded by it.
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        int[] result = lists.get(0).toArray();
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = lists.get(i).intersect(result);
+        }
+        return result;
+    }
+
+    int postingListCount() {
+        return postings.size();
+    }
+
+    private static long[] keysOf(SearchField field, String value) {
+        if (value == null || value.length() < GRAM) {
+            return new long[0];
+        }
+        Set<Long> keys = new HashSet<>();
+        for (int i = 0; i + GRAM <= value.length(); i++) {
+            keys.add(key(field, value.charAt(i), value.charAt(i + 1), value.charAt(i + 2)));
+        }
+        return keys.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static long key(SearchField field, char c0, char c1, char c2) {
+        return ((long) field.ordinal() << 48) | ((long) c0 << 32) | ((long) c1 << 16) | c2;
+    }
+}
@@ -0,0 +1,495 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Column-per-field store for directory users, addressed by dense row id.
+ * <p>
+ * Instead of one {@link CognitoUserResponse} (plus its group list and date strings) per user, every field is
+ * a slot in a shared array: dates are epoch millis, status and emailVerified share one byte, groups are
+ * interned ids in shared, de-duplicated arrays, and repeated strings (names, and emails equal to the username)
+ * are stored once. Normalized search keys reuse the original string when normalizing does not change it.
+ * Shared strings and group sets are reference-counted and dropped with their last user, so churn does not
+ * grow them.
+ * Response objects are only built by {@link #toResponse} at the API boundary.
+ * <p>
+ * Freed rows are reused; each reuse bumps the row's generation so that stale row handles can be detected.
+ * Not thread-safe: the {@link UserDirectory} serializes writers and excludes them from readers.
+ */
+final class UserColumns {
+
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final int[] NO_GROUPS = new int[0];
+    private static final int STATUS_MASK = 0x7F;
+    private static final int EMAIL_VERIFIED = 0x80;
+    private static final int MAX_STATUSES = STATUS_MASK;
+
+    private String[] usernames = new String[1024];
+    private String[] subs = new String[1024];
+    private String[] emails = new String[1024];
+    private String[] firstNames = new String[1024];
+    private String[] lastNames = new String[1024];
+    private String[] phones = new String[1024];
+    private String[] usernameKeys = new String[1024];
+    private String[] emailKeys = new String[1024];
+    private String[] firstNameKeys = new String[1024];
+    private String[] lastNameKeys = new String[1024];
+    private long[] createdAt = new long[1024];
+    private long[] lastModifiedAt = new long[1024];
+    private byte[] flags = new byte[1024];
+    private int[][] groupIds = new int[1024][];
+    private int[] generations = new int[1024];
+
+    private int highWaterMark;
+    private int[] freeIds = new int[16];
+    private int freeCount;
+    private int liveCount;
+
+    // Status code 0 means "no status"; code n refers to statuses.get(n - 1).
+    private final List<String> statuses = new ArrayList<>();
+    private final List<String> statusKeys = new ArrayList<>();
+    private final Map<String, Integer> statusCodes = new HashMap<>();
+    private final int[] statusCounts = new int[MAX_STATUSES + 1];
+
+    private final List<String> groupNames = new ArrayList<>();
+    private final List<String> groupKeys = new ArrayList<>();
+    private final Map<String, Integer> groupIdsByName = new HashMap<>();
+    private int[] groupCounts = new int[16];
+
+    private final Map<String, Counted<String>> strings = new HashMap<>();
+    private final Map<GroupSet, Counted<int[]>> groupSets = new HashMap<>();
+
+    /**
+     * Stores a user and returns its row id.
+     */
+    int add(CognitoUserResponse user) {
+        return add(user.getId(), user.getUsername(), user.getEmail(), user.getFirstName(), user.getLastName(),
+                user.getPhone(), user.getStatus(), user.isEmailVerified(),
+                epochMillis(user.getCreatedDate()), epochMillis(user.getLastModifiedDate()), user.getUserGroups());
+    }
+
+    /**
+     * Stores a user from raw field values (dates as epoch millis or {@link #NO_DATE}) and returns its row id.
+     */
+    int add(String sub, String username, String email, String firstName, String lastName, String phone,
+            String status, boolean emailVerified, long createdAtMillis, long lastModifiedAtMillis, List<String> groups) {
+        int id = freeCount > 0 ? freeIds[--freeCount] : highWaterMark++;
+        ensureCapacity(id + 1);
+
+        String sharedEmail = username != null && username.equals(email) ? username : email;
+        usernames[id] = username;
+        subs[id] = sub;
+        emails[id] = sharedEmail;
+        firstNames[id] = shared(firstName);
+        lastNames[id] = shared(lastName);
+        phones[id] = phone;
+        usernameKeys[id] = key(username, false);
+        emailKeys[id] = sharedEmail == username ? usernameKeys[id] : key(sharedEmail, false);
+        firstNameKeys[id] = key(firstNames[id], true);
+        lastNameKeys[id] = key(lastNames[id], true);
+        createdAt[id] = createdAtMillis;
+        lastModifiedAt[id] = lastModifiedAtMillis;
+
+        int statusCode = statusCode(status);
+        flags[id] = (byte) (statusCode | (emailVerified ? EMAIL_VERIFIED : 0));
+        statusCounts[statusCode]++;
+
+        int[] groupIds = groupIdsOf(groups);
+        this.groupIds[id] = groupIds;
+        for (int group : groupIds) {
+            groupCounts[group]++;
+        }
+        liveCount++;
+        return id;
+    }
+
+    void remove(int id) {
+        if (!isLive(id)) {
+            return;
+        }
+        statusCounts[flags[id] & STATUS_MASK]--;
+        for (int group : groupIds[id]) {
+            groupCounts[group]--;
+        }
+        // Keys equal to their field are the same instance and hold no reference of their own.
+        if (firstNameKeys[id] != firstNames[id]) {
+            release(firstNameKeys[id]);
+        }
+        if (lastNameKeys[id] != lastNames[id]) {
+            release(lastNameKeys[id]);
+        }
+        release(firstNames[id]);
+        release(lastNames[id]);
+        releaseGroupSet(groupIds[id]);
+        usernames[id] = null;
+        subs[id] = null;
+        emails[id] = null;
+        firstNames[id] = null;
+        lastNames[id] = null;
+        phones[id] = null;
+        usernameKeys[id] = null;
+        emailKeys[id] = null;
+        firstNameKeys[id] = null;
+        lastNameKeys[id] = null;
+        groupIds[id] = null;
+        generations[id]++;
+        if (freeCount == freeIds.length) {
+            freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+        liveCount--;
+    }
+
+    boolean isLive(int id) {
+        return id >= 0 && id < highWaterMark && usernames[id] != null;
+    }
+
+    int highWaterMark() {
+        return highWaterMark;
+    }
+
+    int generation(int id) {
+        return generations[id];
+    }
+
+    int size() {
+        return liveCount;
+    }
+
+    String username(int id) {
+        return usernames[id];
+    }
+
+    String sub(int id) {
+        return subs[id];
+    }
+
+    String email(int id) {
+        return emails[id];
+    }
+
+    String firstName(int id) {
+        return firstNames[id];
+    }
+
+    String lastName(int id) {
+        return lastNames[id];
+    }
+
+    String phone(int id) {
+        return phones[id];
+    }
+
+    String status(int id) {
+        int status = flags[id] & STATUS_MASK;
+        return status == 0 ? null : statuses.get(status - 1);
+    }
+
+    boolean emailVerified(int id) {
+        return (flags[id] & EMAIL_VERIFIED) != 0;
+    }
+
+    long createdAt(int id) {
+        return createdAt[id];
+    }
+
+    long lastModifiedAt(int id) {
+        return lastModifiedAt[id];
+    }
+
+    String usernameKey(int id) {
+        return usernameKeys[id];
+    }
+
+    String emailKey(int id) {
+        return emailKeys[id];
+    }
+
+    String firstNameKey(int id) {
+        return firstNameKeys[id];
+    }
+
+    String lastNameKey(int id) {
+        return lastNameKeys[id];
+    }
+
+    int statusCode(int id) {
+        return flags[id] & STATUS_MASK;
+    }
+
+    int[] groupIds(int id) {
+        return groupIds[id];
+    }
+
+    /**
+     * Codes of every stored status whose normalized form equals the (normalized) term.
+     */
+    BitSet statusCodesEqualTo(String statusKey) {
+        BitSet codes = new BitSet();
+        for (int i = 0; i < statusKeys.size(); i++) {
+            if (statusKey.equals(statusKeys.get(i))) {
+                codes.set(i + 1);
+            }
+        }
+        return codes;
+    }
+
+    int usersWithStatus(BitSet codes) {
+        int users = 0;
+        for (int code = codes.nextSetBit(0); code >= 0; code = codes.nextSetBit(code + 1)) {
+            users += statusCounts[code];
+        }
+        return users;
+    }
+
+    /**
+     * Ids of every group whose normalized name contains the (normalized) role term.
+     */
+    BitSet groupIdsContaining(String role) {
+        BitSet ids = new BitSet();
+        for (int i = 0; i < groupKeys.size(); i++) {
+            if (groupKeys.get(i).contains(role)) {
+                ids.set(i);
+            }
+        }
+        return ids;
+    }
+
+    int usersInGroups(BitSet ids) {
+        int users = 0;
+        for (int group = ids.nextSetBit(0); group >= 0; group = ids.nextSetBit(group + 1)) {
+            users += groupCounts[group];
+        }
+        return users;
+    }
+
+    /**
+     * @return the interned id of the group, or -1 if no stored user has ever been in it
+     */
+    int groupId(String groupName) {
+        Integer id = groupIdsByName.get(groupName);
+        return id == null ? -1 : id;
+    }
+
+    String groupName(int groupId) {
+        return groupNames.get(groupId);
+    }
+
+    int groupCount() {
+        return groupNames.size();
+    }
+
+    List<String> groupNamesOf(int id) {
+        int[] groups = groupIds[id];
+        List<String> names = new ArrayList<>(groups.length);
+        for (int group : groups) {
+            names.add(groupNames.get(group));
+        }
+        return names;
+    }
+
+    /**
+     * Builds the API representation of a row.
+     */
+    CognitoUserResponse toResponse(int id) {
+        CognitoUserResponse user = new CognitoUserResponse();
+        user.setId(subs[id]);
+        user.setUsername(usernames[id]);
+        user.setEmail(emails[id]);
+        user.setFirstName(firstNames[id]);
+        user.setLastName(lastNames[id]);
+        user.setPhone(phones[id]);
+        user.setEmailVerified(emailVerified(id));
+        user.setStatus(status(id));
+        user.setCreatedDate(isoDate(createdAt[id]));
+        user.setLastModifiedDate(isoDate(lastModifiedAt[id]));
+        user.setUserGroups(groupNamesOf(id));
+        return user;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= usernames.length) {
+            return;
+        }
+        int capacity = Math.max(required, usernames.length * 2);
+        usernames = Arrays.copyOf(usernames, capacity);
+        subs = Arrays.copyOf(subs, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+        firstNames = Arrays.copyOf(firstNames, capacity);
+        lastNames = Arrays.copyOf(lastNames, capacity);
+        phones = Arrays.copyOf(phones, capacity);
+        usernameKeys = Arrays.copyOf(usernameKeys, capacity);
+        emailKeys = Arrays.copyOf(emailKeys, capacity);
+        firstNameKeys = Arrays.copyOf(firstNameKeys, capacity);
+        lastNameKeys = Arrays.copyOf(lastNameKeys, capacity);
+        createdAt = Arrays.copyOf(createdAt, capacity);
+        lastModifiedAt = Arrays.copyOf(lastModifiedAt, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        groupIds = Arrays.copyOf(groupIds, capacity);
+        generations = Arrays.copyOf(generations, capacity);
+    }
+
+    private String shared(String value) {
+        if (value == null) {
+            return null;
+        }
+        Counted<String> entry = strings.computeIfAbsent(value, Counted::new);
+        entry.references++;
+        return entry.value;
+    }
+
+    private void release(String value) {
+        if (value == null) {
+            return;
+        }
+        Counted<String> entry = strings.get(value);
+        if (entry != null && --entry.references == 0) {
+            strings.remove(value);
+        }
+    }
+
+    /**
+     * Normalized search key, reusing the original instance when normalizing does not change it.
+     */
+    private String key(String value, boolean shareResult) {
+        String normalized = normalize(value);
+        if (normalized == null || normalized.equals(value)) {
+            return normalized == null ? null : value;
+        }
+        return shareResult ? shared(normalized) : normalized;
+    }
+
+    private int statusCode(String status) {
+        if (status == null) {
+            return 0;
+        }
+        Integer code = statusCodes.get(status);
+        if (code != null) {
+            return code;
+        }
+        if (statuses.size() == MAX_STATUSES) {
+            throw new IllegalStateException("Too many distinct user statuses to encode: " + status);
+        }
+        statuses.add(status);
+        String statusKey = normalize(status);
+        statusKeys.add(statusKey == null ? "" : statusKey);
+        statusCodes.put(status, statuses.size());
+        return statuses.size();
+    }
+
+    private int[] groupIdsOf(List<String> groups) {
+        if (groups == null || groups.isEmpty()) {
+            return NO_GROUPS;
+        }
+        int[] ids = new int[groups.size()];
+        int n = 0;
+        for (String group : groups) {
+            if (group != null) {
+                ids[n++] = internGroup(group);
+            }
+        }
+        ids = Arrays.copyOf(ids, n);
+        if (n == 0) {
+            return NO_GROUPS;
+        }
+        // Most users share one of a handful of membership sets; store each distinct set once.
+        Counted<int[]> entry = groupSets.computeIfAbsent(new GroupSet(ids), set -> new Counted<>(set.ids));
+        entry.references++;
+        return entry.value;
+    }
+
+    private void releaseGroupSet(int[] ids) {
+        if (ids.length == 0) {
+            return;
+        }
+        GroupSet set = new GroupSet(ids);
+        Counted<int[]> entry = groupSets.get(set);
+        if (entry != null && --entry.references == 0) {
+            groupSets.remove(set);
+        }
+    }
+
+    /**
+     * Number of distinct shared strings and group sets; for tests.
+     */
+    int internedCount() {
+        return strings.size() + groupSets.size();
+    }
+
+    private int internGroup(String group) {
+        Integer id = groupIdsByName.get(group);
+        if (id != null) {
+            return id;
+        }
+        int newId = groupNames.size();
+        groupNames.add(group);
+        String groupKey = normalize(group);
+        groupKeys.add(groupKey == null ? "" : groupKey);
+        groupIdsByName.put(group, newId);
+        if (newId == groupCounts.length) {
+            groupCounts = Arrays.copyOf(groupCounts, newId * 2);
+        }
+        return newId;
+    }
+
+    /**
+     * Dates arrive as {@link Instant#toString()} output; anything else (including a missing date) is dropped.
+     */
+    private static long epochMillis(String isoDate) {
+        if (isoDate == null) {
+            return NO_DATE;
+        }
+        try {
+            return Instant.parse(isoDate).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return NO_DATE;
+        }
+    }
+
+    private static String isoDate(long epochMillis) {
+        return epochMillis == NO_DATE ? null : Instant.ofEpochMilli(epochMillis).toString();
+    }
+
+    /**
+     * Normalization shared by stored fields and query terms: trimmed and lower-cased. Returns null for null or blank input.
+     */
+    static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Counted<T> {
+        private final T value;
+        private int references;
+
+        private Counted(T value) {
+            this.value = value;
+        }
+    }
+
+    private record GroupSet(int[] ids) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof GroupSet set && Arrays.equals(ids, set.ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(ids);
+        }
+    }
+}
@@ -0,0 +1,589 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Resident, versioned mirror of the Cognito user pool (users + group memberships).
+ * Search and group queries run against this mirror instead of paging through Cognito.
+ * Results are always returned in username order so iteration is deterministic.
+ * <p>
+ * Users are held in a compact {@link UserColumns} store addressed by dense row ids; response objects are only
+ * built for the rows a caller actually consumes. Searches are compiled once per query into a {@link CompiledSearch}.
+ * "Contains" terms of three or more characters are answered from a {@link TrigramIndex}: the posting lists
+ * of every term's trigrams are intersected into a candidate set, which is then verified against the full
+ * criteria. Group membership is held as one bitset of ids per group in a {@link GroupIndex}, so role filters,
+ * group lookups and the employee view are bitset operations. Queries with neither an indexable term nor a
+ * role fall back to a scan.
+ * <p>
+ * The mirror is rebuilt wholesale by {@link #replaceAll} and kept current between rebuilds by
+ * {@link #upsert} and {@link #remove}. A full scan takes a while, so users written in the meantime are
+ * recorded (see {@link #beginRefresh}) and keep their written state when the scan is swapped in. Writers and queries are serialized by a read/write lock. Query results
+ * are produced a chunk at a time, taking the read lock only while a chunk is filled, so a slow consumer never
+ * blocks directory updates and a large result is never held in full.
+ * <p>
+ * The contents can be saved and restored as a {@link DirectorySnapshot} so a restarting replica does not
+ * have to wait for a full Cognito scan; see {@link DirectorySnapshotStore}.
+ */
+@Component
+public class UserDirectory implements MeterBinder {
+
+    /**
+     * Everything a full refresh replaces, swapped in one volatile write and then maintained in place
+     * under the write lock.
+     */
+    private static final class Contents {
+        final UserColumns columns;
+        final NavigableMap<String, Integer> idsByUsername = new TreeMap<>();
+        final TrigramIndex trigramIndex;
+        final GroupIndex groupIndex;
+
+        Contents(Set<String> employeeGroups) {
+            this(new UserColumns(), employeeGroups);
+        }
+
+        /**
+         * Indexes every row already held by {@code columns}.
+         */
+        Contents(UserColumns columns, Set<String> employeeGroups) {
+            this.columns = columns;
+            this.trigramIndex = new TrigramIndex(columns);
+            this.groupIndex = new GroupIndex(columns, employeeGroups);
+            for (int id = 0; id < columns.highWaterMark(); id++) {
+                if (columns.isLive(id)) {
+                    index(id);
+                }
+            }
+        }
+
+        void add(CognitoUserResponse user) {
+            index(columns.add(user));
+        }
+
+        private void index(int id) {
+            idsByUsername.put(columns.username(id), id);
+            trigramIndex.add(id);
+            groupIndex.add(id);
+        }
+
+        void remove(int id) {
+            idsByUsername.remove(columns.username(id));
+            trigramIndex.remove(id);
+            groupIndex.remove(id);
+            columns.remove(id);
+        }
+
+        /**
+         * A row handle pairs the id with its generation, so a reused row is not mistaken for the original user.
+         */
+        long handle(int id) {
+            return ((long) columns.generation(id) << 32) | (id & 0xFFFFFFFFL);
+        }
+
+        /**
+         * Sorts the ids by username, without boxing: a bottom-up merge sort that alternates between the given
+         * array (which it overwrites) and one scratch array.
+         */
+        long[] handlesInUsernameOrder(int[] ids) {
+            int n = ids.length;
+            int[] src = ids;
+            int[] dst = new int[n];
+            for (int width = 1; width < n; width <<= 1) {
+                for (int lo = 0; lo < n; lo += width << 1) {
+                    int mid = Math.min(lo + width, n);
+                    int hi = Math.min(lo + (width << 1), n);
+                    int i = lo;
+                    int j = mid;
+                    int k = lo;
+                    while (i < mid && j < hi) {
+                        dst[k++] = columns.username(src[j]).compareTo(columns.username(src[i])) < 0 ? src[j++] : src[i++];
+                    }
+                    while (i < mid) {
+                        dst[k++] = src[i++];
+                    }
+                    while (j < hi) {
+                        dst[k++] = src[j++];
+                    }
+                }
+                int[] merged = dst;
+                dst = src;
+                src = merged;
+            }
+            long[] handles = new long[n];
+            for (int i = 0; i < n; i++) {
+                handles[i] = handle(src[i]);
+            }
+            return handles;
+        }
+    }
+
+    /**
+     * Results built per hold of the read lock.
+     */
+    private static final int CHUNK_SIZE = 256;
+
+    /**
+     * Rows a chunk may visit before it gives up the read lock, so a selective walk cannot hold it for long.
+     */
+    private static final int CHUNK_VISITS = 4096;
+
+    /**
+     * Candidate sets up to this size are verified and sorted up front; larger ones filter a walk in username order.
+     */
+    private static final int SORT_THRESHOLD = 4096;
+
+    private final Set<String> employeeGroups;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Contents contents;
+    private volatile Set<String> changedDuringRefresh;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Instant lastRefreshed;
+    private volatile Instant lastSyncProgress;
+
+    /**
+     * @param employeeGroups groups whose members make up the employee view
+     */
+    public UserDirectory(@Value("${directory.employee-groups:SuperAdmins,DataStewards}") List<String> employeeGroups) {
+        this.employeeGroups = Set.copyOf(employeeGroups);
+        this.contents = new Contents(this.employeeGroups);
+    }
+
+    /**
+     * Starts recording the usernames that {@link #upsert} and {@link #remove} touch, until {@link #endRefresh}.
+     * Call before a full scan starts; {@link #replaceAll} then keeps the current state of those users
+     * rather than the older scanned one.
+     *
+     * @return the recorded usernames, updated as writes happen
+     */
+    public Set<String> beginRefresh() {
+        Set<String> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRefresh = changed;
+        return changed;
+    }
+
+    public void endRefresh() {
+        changedDuringRefresh = null;
+    }
+
+    /**
+     * Swaps in a freshly scanned view of the pool. Readers see either the old or the new view, never a mix.
+     * Users written since {@link #beginRefresh} keep their current state, or stay absent if they were removed.
+     */
+    public void replaceAll(Collection<CognitoUserResponse> users) {
+        Contents rebuilt = new Contents(employeeGroups);
+        for (CognitoUserResponse user : users) {
+            if (user.getUsername() != null && !rebuilt.idsByUsername.containsKey(user.getUsername())) {
+                rebuilt.add(user);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            Set<String> changed = changedDuringRefresh;
+            if (changed != null) {
+                Contents current = contents;
+                for (String username : changed) {
+                    Integer scanned = rebuilt.idsByUsername.get(username);
+                    if (scanned != null) {
+                        rebuilt.remove(scanned);
+                    }
+                    Integer written = current.idsByUsername.get(username);
+                    if (written != null) {
+                        rebuilt.add(current.columns.toResponse(written));
+                    }
+                }
+            }
+            this.contents = rebuilt;
+            this.lastRefreshed = Instant.now();
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserts or replaces a single user (matched by username), updating the indexes incrementally.
+     */
+    public void upsert(CognitoUserResponse user) {
+        if (user.getUsername() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Contents current = contents;
+            Integer existing = current.idsByUsername.get(user.getUsername());
+            if (existing != null) {
+                current.remove(existing);
+            }
+            current.add(user);
+            recordChange(user.getUsername());
+            version.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a user by username; a no-op if the directory does not hold it.
+     */
+    public void remove(String username) {
+        lock.writeLock().lock();
+        try {
+            Contents current = contents;
+            Integer existing = current.idsByUsername.get(username);
+            if (existing != null) {
+                current.remove(existing);
+                version.incrementAndGet();
+            }
+            recordChange(username);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs under the write lock, so a change is either recorded before {@link #replaceAll} reads the record
+     * or made to the new contents.
+     */
+    private void recordChange(String username) {
+        Set<String> changed = changedDuringRefresh;
+        if (changed != null) {
+            changed.add(username);
+        }
+    }
+
+    /**
+     * Encodes the current contents as a {@link DirectorySnapshot}.
+     */
+    byte[] encodeSnapshot() {
+        return read(current -> DirectorySnapshot.encode(current.columns, current.idsByUsername.values(),
+                version.get(), lastRefreshed == null ? 0 : lastRefreshed.toEpochMilli()));
+    }
+
+    /**
+     * Loads a {@link DirectorySnapshot}, unless the directory has been loaded in the meantime. The snapshot's
+     * refresh time becomes {@link #getLastRefreshed()}, so staleness is judged by the data, not by the load.
+     *
+     * @return the snapshot header, or null if the directory was already loaded
+     * @throws IllegalStateException if the snapshot is unreadable
+     */
+    DirectorySnapshot.Header restoreSnapshot(ByteBuffer snapshot) {
+        UserColumns columns = new UserColumns();
+        DirectorySnapshot.Header header = DirectorySnapshot.decode(snapshot, columns);
+        Contents restored = new Contents(columns, employeeGroups);
+        lock.writeLock().lock();
+        try {
+            if (isLoaded()) {
+                return null;
+            }
+            this.contents = restored;
+            this.lastRefreshed = Instant.ofEpochMilli(header.refreshedAtMillis());
+            version.set(Math.max(version.get(), header.directoryVersion()) + 1);
+            return header;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Set<String> getEmployeeGroups() {
+        return employeeGroups;
+    }
+
+    public boolean isLoaded() {
+        return lastRefreshed != null;
+    }
+
+    /**
+     * True when the mirror has been loaded and either its last full refresh or the last progress of the
+     * incremental synchronizer is within the given bound.
+     */
+    public boolean isFresh(Duration maxStaleness) {
+        Instant refreshed = lastRefreshed;
+        if (refreshed == null) {
+            return false;
+        }
+        Instant now = Instant.now();
+        Instant synced = lastSyncProgress;
+        return Duration.between(refreshed, now).compareTo(maxStaleness) <= 0
+                || (synced != null && Duration.between(synced, now).compareTo(maxStaleness) <= 0);
+    }
+
+    /**
+     * Records that the incremental synchronizer has compared another page of the pool with Cognito.
+     */
+    public void markSyncProgress() {
+        lastSyncProgress = Instant.now();
+    }
+
+    /**
+     * Records a completed incremental sweep: every user has since been compared with Cognito, so the
+     * directory is at least as current as a full refresh taken when the sweep started.
+     */
+    public void markSynced(Instant sweepStarted) {
+        lock.writeLock().lock();
+        try {
+            if (lastRefreshed == null || sweepStarted.isAfter(lastRefreshed)) {
+                lastRefreshed = sweepStarted;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public Instant getLastRefreshed() {
+        return lastRefreshed;
+    }
+
+    public int size() {
+        return read(current -> current.columns.size());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("user.directory.size", this, UserDirectory::size)
+                .description("Users held in the in-memory directory").register(registry);
+        Gauge.builder("user.directory.version", this, UserDirectory::getVersion)
+                .description("Directory version, incremented on every change").register(registry);
+        Gauge.builder("user.directory.age", this, directory -> directory.lastRefreshed == null
+                        ? Double.NaN
+                        : Duration.between(directory.lastRefreshed, Instant.now()).toMillis() / 1000.0)
+                .baseUnit("seconds").description("Time since the last full refresh").register(registry);
+        Gauge.builder("user.directory.trigrams", this, directory -> directory.read(current -> current.trigramIndex.postingListCount()))
+                .description("Distinct trigrams held in the search index").register(registry);
+        Gauge.builder("user.directory.groups", this, directory -> directory.read(current -> current.columns.groupCount()))
+                .description("Distinct groups interned by the directory").register(registry);
+    }
+
+    public Optional<CognitoUserResponse> get(String username) {
+        return read(current -> {
+            Integer id = current.idsByUsername.get(username);
+            return id == null ? Optional.<CognitoUserResponse>empty() : Optional.of(current.columns.toResponse(id));
+        });
+    }
+
+    public List<String> usernames() {
+        return read(current -> new ArrayList<>(current.idsByUsername.keySet()));
+    }
+
+    public Optional<List<String>> groupsOf(String username) {
+        return read(current -> {
+            Integer id = current.idsByUsername.get(username);
+            return id == null ? Optional.<List<String>>empty() : Optional.of(current.columns.groupNamesOf(id));
+        });
+    }
+
+    /**
+     * Filters the mirror by the same "contains"/"equals" rules the search API has always used.
+     */
+    public List<CognitoUserResponse> search(SearchCriteria criteria) {
+        return streamSearch(criteria).collect(Collectors.toList());
+    }
+
+    /**
+     * Yields matches in username order, found and built a chunk at a time as the stream is consumed.
+     */
+    public Stream<CognitoUserResponse> streamSearch(SearchCriteria criteria) {
+        return stream(read(current -> matches(current, criteria, null, Integer.MAX_VALUE)));
+    }
+
+    /**
+     * Returns up to {@code limit} matches whose username sorts strictly after {@code afterUsername}
+     * (or from the start when null). Paging by key rather than offset keeps a cursor valid across
+     * directory refreshes: users present for the whole iteration are returned exactly once.
+     *
+     * @return the page, plus one look-ahead element if more matches exist
+     */
+    public List<CognitoUserResponse> searchAfter(String afterUsername, int limit, SearchCriteria criteria) {
+        return stream(read(current -> matches(current, criteria, afterUsername, limit + 1)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns all users that belong to ANY of the given groups.
+     */
+    public List<CognitoUserResponse> findByAnyGroup(Collection<String> groupNames) {
+        return streamByAnyGroup(groupNames).collect(Collectors.toList());
+    }
+
+    public Stream<CognitoUserResponse> streamByAnyGroup(Collection<String> groupNames) {
+        return members(index -> index.membersOfAny(groupNames), index -> index.memberOfAny(groupNames));
+    }
+
+    /**
+     * Members of the configured employee groups, maintained as memberships change rather than recomputed per call.
+     */
+    public List<CognitoUserResponse> findEmployees() {
+        return streamEmployees().collect(Collectors.toList());
+    }
+
+    public Stream<CognitoUserResponse> streamEmployees() {
+        return members(GroupIndex::employees, index -> index::isEmployee);
+    }
+
+    private <T> T read(Function<Contents, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(contents);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Stream<CognitoUserResponse> members(Function<GroupIndex, BitSet> query, Function<GroupIndex, IntPredicate> membership) {
+        return stream(read(current -> {
+            BitSet members = query.apply(current.groupIndex);
+            return members.cardinality() <= SORT_THRESHOLD
+                    ? new Cursor(current, current.handlesInUsernameOrder(members.stream().toArray()), null, null, Integer.MAX_VALUE)
+                    : new Cursor(current, null, null, membership.apply(current.groupIndex), Integer.MAX_VALUE);
+        }));
+    }
+
+    private static Stream<CognitoUserResponse> stream(Cursor cursor) {
+        return StreamSupport.stream(cursor, false);
+    }
+
+    /**
+     * Runs under the read lock. Index-assisted queries verify their candidates: trigram hits only prove that
+     * every trigram occurs somewhere in the field, not that the whole term does. A small candidate set is
+     * verified and sorted here; a large one only pre-filters the walk, which verifies each row as it is visited.
+     */
+    private Cursor matches(Contents current, SearchCriteria criteria, String afterUsername, int limit) {
+        CompiledSearch search = CompiledSearch.compile(criteria, current.columns);
+        int[] candidates = current.trigramIndex.candidates(criteria);
+        String role = UserColumns.normalize(criteria.role());
+        BitSet roleMembers = role == null ? null : current.groupIndex.membersOfGroupsContaining(role);
+        if (candidates != null && roleMembers != null) {
+            candidates = Arrays.stream(candidates).filter(roleMembers::get).toArray();
+        } else if (candidates == null && roleMembers != null && roleMembers.cardinality() <= SORT_THRESHOLD) {
+            candidates = roleMembers.stream().toArray();
+        }
+
+        if (candidates != null && candidates.length <= SORT_THRESHOLD) {
+            int[] verified = Arrays.stream(candidates)
+                    .filter(search)
+                    .filter(id -> afterUsername == null || current.columns.username(id).compareTo(afterUsername) > 0)
+                    .toArray();
+            return new Cursor(current, current.handlesInUsernameOrder(verified), null, null, limit);
+        }
+
+        BitSet prefilter = roleMembers;
+        if (candidates != null) {
+            prefilter = new BitSet();
+            for (int id : candidates) {
+                prefilter.set(id);
+            }
+        }
+        BitSet candidateSet = prefilter;
+        IntPredicate filter = candidateSet != null
+                ? id -> candidateSet.get(id) && search.test(id)
+                : search.matchesAll() ? null : search;
+        return new Cursor(current, null, afterUsername, filter, limit);
+    }
+
+    /**
+     * Yields results in username order, filling one chunk per hold of the read lock. It either replays handles
+     * sorted up front, skipping any whose row has since been removed or reused, or walks the usernames after
+     * the last one it returned, testing each row as it is visited. It stays on the contents it started with,
+     * so a full refresh in the meantime does not move it.
+     */
+    private final class Cursor extends Spliterators.AbstractSpliterator<CognitoUserResponse> {
+        private final Contents contents;
+        private final long[] handles;
+        private final IntPredicate filter;
+        private final Deque<CognitoUserResponse> chunk = new ArrayDeque<>();
+        private String lastUsername;
+        private int position;
+        private int remaining;
+        private boolean exhausted;
+
+        /**
+         * @param handles matches in username order, or null to walk the usernames after {@code afterUsername}
+         * @param filter  applied to each row of a walk under the read lock; null matches every row
+         */
+        Cursor(Contents contents, long[] handles, String afterUsername, IntPredicate filter, int limit) {
+            super(Long.MAX_VALUE, ORDERED | NONNULL);
+            this.contents = contents;
+            this.handles = handles;
+            this.filter = filter;
+            this.lastUsername = afterUsername;
+            this.remaining = limit;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super CognitoUserResponse> action) {
+            while (chunk.isEmpty() && !exhausted) {
+                lock.readLock().lock();
+                try {
+                    if (handles != null) {
+                        replay();
+                    } else {
+                        walk();
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+            CognitoUserResponse next = chunk.poll();
+            if (next == null) {
+                return false;
+            }
+            action.accept(next);
+            return true;
+        }
+
+        private void replay() {
+            UserColumns columns = contents.columns;
+            while (chunk.size() < CHUNK_SIZE && position < handles.length && remaining > 0) {
+                long handle = handles[position++];
+                int id = (int) handle;
+                int generation = (int) (handle >>> 32);
+                if (columns.isLive(id) && columns.generation(id) == generation) {
+                    chunk.add(columns.toResponse(id));
+                    remaining--;
+                }
+            }
+            exhausted = position == handles.length || remaining == 0;
+        }
+
+        private void walk() {
+            Map<String, Integer> rest = lastUsername == null
+                    ? contents.idsByUsername
+                    : contents.idsByUsername.tailMap(lastUsername, false);
+            Iterator<Map.Entry<String, Integer>> entries = rest.entrySet().iterator();
+            int visited = 0;
+            while (chunk.size() < CHUNK_SIZE && visited < CHUNK_VISITS && remaining > 0 && entries.hasNext()) {
+                Map.Entry<String, Integer> entry = entries.next();
+                visited++;
+                lastUsername = entry.getKey();
+                int id = entry.getValue();
+                if (filter == null || filter.test(id)) {
+                    chunk.add(contents.columns.toResponse(id));
+                    remaining--;
+                }
+            }
+            exhausted = remaining == 0 || !entries.hasNext();
+        }
+    }
+}
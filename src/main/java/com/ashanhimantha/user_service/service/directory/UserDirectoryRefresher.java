@@ -0,0 +1,69 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import com.ashanhimantha.user_service.service.CognitoUserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the {@link UserDirectory} once the application is ready, from a local snapshot when one is
+ * available and otherwise with a full Cognito scan. From then on the {@link UserDirectorySynchronizer}
+ * keeps it current with incremental sweeps; its first sweep is the catch-up after a snapshot restore.
+ * With the synchronizer disabled the directory is instead rebuilt in full on a fixed delay, and the
+ * catch-up is a full refresh in the background so readiness does not wait on a Cognito scan.
+ */
+@Component
+public class UserDirectoryRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectoryRefresher.class);
+
+    private final CognitoUserService cognitoUserService;
+    private final DirectorySnapshotStore snapshotStore;
+    private final UserDirectorySynchronizer synchronizer;
+
+    public UserDirectoryRefresher(CognitoUserService cognitoUserService, DirectorySnapshotStore snapshotStore,
+                                  UserDirectorySynchronizer synchronizer) {
+        this.cognitoUserService = cognitoUserService;
+        this.snapshotStore = snapshotStore;
+        this.synchronizer = synchronizer;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        boolean restored = snapshotStore.load();
+        if (!restored) {
+            refresh("startup");
+        }
+        if (synchronizer.isEnabled()) {
+            synchronizer.start();
+            return;
+        }
+        if (!restored) {
+            return;
+        }
+        Thread catchUp = new Thread(() -> refresh("catch-up"), "directory-catch-up");
+        catchUp.setDaemon(true);
+        catchUp.start();
+    }
+
+    @Scheduled(fixedDelayString = "${directory.refresh-interval-ms:300000}",
+            initialDelayString = "${directory.refresh-interval-ms:300000}")
+    public void scheduledRefresh() {
+        if (synchronizer.isEnabled()) {
+            return;
+        }
+        refresh("scheduled");
+    }
+
+    private void refresh(String trigger) {
+        try {
+            cognitoUserService.refreshDirectory();
+        } catch (RuntimeException e) {
+            // Keep serving the previous version; queries fall back to an inline rebuild once it goes stale.
+            logger.error("User directory {} refresh failed: {}", trigger, e.getMessage());
+        }
+    }
+}
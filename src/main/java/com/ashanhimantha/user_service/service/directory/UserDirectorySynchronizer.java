@@ -0,0 +1,367 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.ashanhimantha.user_service.service.CognitoUserService;
+import com.ashanhimantha.user_service.service.readmodel.UserReadModel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.InvalidParameterException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the {@link UserDirectory} (and the {@link UserReadModel}, when enabled) current with incremental
+ * sweeps of the pool instead of periodic full rebuilds.
+ * <p>
+ * A sweep walks ListUsers one page at a time, paced at {@code directory.resync.pages-per-second} with
+ * +/- {@code directory.resync.jitter} so replicas do not fall into step, and well inside the ListUsers
+ * quota left for request paths. Each user is compared with the local copy: only users whose
+ * {@code userLastModifiedDate} or group memberships differ are written. Memberships come from one
+ * group scan per sweep, since membership changes do not move {@code userLastModifiedDate}. Users the
+ * sweep never saw are removed when it completes.
+ * <p>
+ * A sweep can run for minutes, so its group scan and its "never saw" set go stale. Users changed locally
+ * while it runs (write-through, other replicas, pushed events: every {@link UserChangedEvent}) already hold
+ * a newer copy than the sweep's, so the sweep neither overwrites nor removes them; the next sweep compares
+ * them again.
+ * <p>
+ * Progress is checkpointed to {@code directory.resync.checkpoint-path} every few pages, so a restarted
+ * replica resumes the interrupted sweep rather than starting over. A resumed sweep skips the removal
+ * step, because the users seen before the restart are not known.
+ */
+@Component
+public class UserDirectorySynchronizer implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectorySynchronizer.class);
+
+    private static final int CHECKPOINT_EVERY_PAGES = 10;
+
+    private final CognitoUserService cognitoUserService;
+    private final UserDirectory userDirectory;
+    private final UserReadModel readModel;
+    private final boolean enabled;
+    private final long pageDelayMillis;
+    private final double jitter;
+    private final long sweepIntervalMillis;
+    private final Path checkpointPath;
+    private final Timer sweepTimer;
+
+    private final AtomicLong upserts = new AtomicLong();
+    private final AtomicLong removals = new AtomicLong();
+    private final AtomicLong sweepPages = new AtomicLong();
+    private final Set<String> changedDuringSweep = ConcurrentHashMap.newKeySet();
+    private volatile Instant lastCompletedSweepStart;
+    private volatile boolean stopped;
+    private volatile Thread worker;
+
+    public UserDirectorySynchronizer(CognitoUserService cognitoUserService,
+                                     UserDirectory userDirectory,
+                                     UserReadModel readModel,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${directory.resync.enabled:true}") boolean enabled,
+                                     @Value("${directory.resync.pages-per-second:2}") double pagesPerSecond,
+                                     @Value("${directory.resync.jitter:0.5}") double jitter,
+                                     @Value("${directory.resync.interval-ms:60000}") long sweepIntervalMillis,
+                                     @Value("${directory.resync.checkpoint-path:}") String checkpointPath) {
+        this.cognitoUserService = cognitoUserService;
+        this.userDirectory = userDirectory;
+        this.readModel = readModel;
+        this.enabled = enabled;
+        this.pageDelayMillis = Math.round(1000 / pagesPerSecond);
+        this.jitter = Math.max(0, Math.min(1, jitter));
+        this.sweepIntervalMillis = sweepIntervalMillis;
+        this.checkpointPath = checkpointPath == null || checkpointPath.isBlank() ? null : Path.of(checkpointPath);
+        this.sweepTimer = Timer.builder("user.directory.resync.sweep")
+                .description("Duration of completed incremental sweeps of the pool")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts sweeping on a background thread. The directory must already be loaded.
+     */
+    public synchronized void start() {
+        if (!enabled || worker != null) {
+            return;
+        }
+        worker = new Thread(this::run, "directory-resync");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        if (worker != null) {
+            worker.interrupt();
+            worker = null;
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        changedDuringSweep.add(event.username());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("user.directory.resync.changes", upserts, AtomicLong::get)
+                .tags(Tags.of("change", "upsert")).description("Users written by incremental sweeps").register(registry);
+        FunctionCounter.builder("user.directory.resync.changes", removals, AtomicLong::get)
+                .tags(Tags.of("change", "remove")).description("Users removed by incremental sweeps").register(registry);
+        Gauge.builder("user.directory.resync.pages", sweepPages, AtomicLong::get)
+                .description("ListUsers pages compared by the sweep in progress").register(registry);
+        Gauge.builder("user.directory.resync.lag", this, synchronizer -> synchronizer.lastCompletedSweepStart == null
+                        ? Double.NaN
+                        : Duration.between(synchronizer.lastCompletedSweepStart, Instant.now()).toMillis() / 1000.0)
+                .baseUnit("seconds").description("Upper bound on how far the directory trails Cognito").register(registry);
+    }
+
+    private void run() {
+        while (!stopped) {
+            try {
+                sweep();
+                pause(sweepIntervalMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // The checkpoint still holds the last good position; retry from there after a pause.
+                logger.error("User directory sweep failed: {}", e.getMessage());
+                try {
+                    pause(sweepIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs one sweep to completion, resuming from the checkpoint if one exists.
+     */
+    void sweep() throws InterruptedException {
+        Checkpoint checkpoint = readCheckpoint();
+        boolean resumed = checkpoint != null;
+        if (checkpoint == null) {
+            checkpoint = new Checkpoint(Instant.now(), null, 0, 0);
+        }
+        long startedNanos = System.nanoTime();
+        // Cleared before the group scan: anything changed from here on is newer than what the sweep reads.
+        changedDuringSweep.clear();
+        Map<String, List<String>> memberships = cognitoUserService.getAllGroupMemberships();
+        Set<String> seen = resumed ? null : new HashSet<>();
+        String token = checkpoint.paginationToken();
+        long pages = checkpoint.pages();
+        long changed = checkpoint.changed();
+        sweepPages.set(pages);
+        if (resumed) {
+            logger.info("Resuming user directory sweep started {} after {} pages", checkpoint.sweepStarted(), pages);
+        }
+
+        do {
+            CognitoUserService.PaginatedUserResponse page;
+            try {
+                page = cognitoUserService.listUsersPage(token);
+            } catch (InvalidParameterException e) {
+                // The checkpointed pagination token has expired; start the sweep over.
+                logger.warn("Discarding user directory sweep checkpoint: {}", e.getMessage());
+                deleteCheckpoint();
+                return;
+            }
+            for (CognitoUserResponse user : page.users()) {
+                user.setUserGroups(new ArrayList<>(memberships.getOrDefault(user.getUsername(), Collections.emptyList())));
+                if (seen != null) {
+                    seen.add(user.getUsername());
+                }
+                if (apply(user)) {
+                    changed++;
+                }
+            }
+            token = page.nextToken();
+            pages++;
+            sweepPages.set(pages);
+            userDirectory.markSyncProgress();
+            if (token != null) {
+                if (pages % CHECKPOINT_EVERY_PAGES == 0) {
+                    writeCheckpoint(new Checkpoint(checkpoint.sweepStarted(), token, pages, changed));
+                }
+                try {
+                    pause(jittered(pageDelayMillis));
+                } catch (InterruptedException e) {
+                    writeCheckpoint(new Checkpoint(checkpoint.sweepStarted(), token, pages, changed));
+                    throw e;
+                }
+            }
+        } while (token != null && !stopped);
+
+        if (token != null) {
+            writeCheckpoint(new Checkpoint(checkpoint.sweepStarted(), token, pages, changed));
+            return;
+        }
+        if (seen != null) {
+            changed += removeUnseen(seen);
+        }
+        deleteCheckpoint();
+        userDirectory.markSynced(checkpoint.sweepStarted());
+        lastCompletedSweepStart = checkpoint.sweepStarted();
+        long elapsedNanos = System.nanoTime() - startedNanos;
+        sweepTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        logger.info("User directory sweep finished: {} pages, {} users changed in {} ms",
+                pages, changed, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    /**
+     * Writes the user if it differs from the local copy.
+     *
+     * @return true if anything was written
+     */
+    private boolean apply(CognitoUserResponse user) {
+        if (changedDuringSweep.contains(user.getUsername())) {
+            return false;
+        }
+        Optional<CognitoUserResponse> local = userDirectory.get(user.getUsername());
+        if (local.isPresent()
+                && epochMillis(local.get().getLastModifiedDate()) == epochMillis(user.getLastModifiedDate())
+                && new HashSet<>(local.get().getUserGroups()).equals(new HashSet<>(user.getUserGroups()))) {
+            return false;
+        }
+        userDirectory.upsert(user);
+        if (readModel.isEnabled()) {
+            readModel.upsert(user);
+        }
+        upserts.incrementAndGet();
+        return true;
+    }
+
+    private int removeUnseen(Set<String> seen) {
+        int removed = 0;
+        for (String username : userDirectory.usernames()) {
+            // Users created or changed mid-sweep may sit on a page that was already walked.
+            if (seen.contains(username) || changedDuringSweep.contains(username)) {
+                continue;
+            }
+            Optional<CognitoUserResponse> local = userDirectory.get(username);
+            userDirectory.remove(username);
+            if (readModel.isEnabled() && local.isPresent() && local.get().getId() != null) {
+                readModel.remove(local.get().getId());
+            }
+            removed++;
+        }
+        removals.addAndGet(removed);
+        return removed;
+    }
+
+    private long jittered(long delayMillis) {
+        if (jitter == 0) {
+            return delayMillis;
+        }
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, jitter);
+        return Math.round(delayMillis * factor);
+    }
+
+    private void pause(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+
+    private static long epochMillis(String isoInstant) {
+        if (isoInstant == null || "null".equals(isoInstant)) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            return Instant.parse(isoInstant).toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return Long.MIN_VALUE;
+        }
+    }
+
+    record Checkpoint(Instant sweepStarted, String paginationToken, long pages, long changed) {
+    }
+
+    private Checkpoint readCheckpoint() {
+        if (checkpointPath == null || !Files.isReadable(checkpointPath)) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(checkpointPath)) {
+            properties.load(reader);
+            String token = properties.getProperty("paginationToken");
+            if (token == null || token.isEmpty()) {
+                return null;
+            }
+            return new Checkpoint(Instant.parse(properties.getProperty("sweepStarted")), token,
+                    Long.parseLong(properties.getProperty("pages", "0")),
+                    Long.parseLong(properties.getProperty("changed", "0")));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Ignoring unreadable user directory sweep checkpoint {}: {}", checkpointPath, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeCheckpoint(Checkpoint checkpoint) {
+        if (checkpointPath == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        properties.setProperty("sweepStarted", checkpoint.sweepStarted().toString());
+        properties.setProperty("paginationToken", checkpoint.paginationToken());
+        properties.setProperty("pages", Long.toString(checkpoint.pages()));
+        properties.setProperty("changed", Long.toString(checkpoint.changed()));
+        try {
+            Path directory = checkpointPath.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, checkpointPath.getFileName().toString(), ".tmp");
+            try {
+                try (Writer writer = Files.newBufferedWriter(temporary)) {
+                    properties.store(writer, "user directory sweep checkpoint");
+                }
+                Files.move(temporary, checkpointPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to write user directory sweep checkpoint {}: {}", checkpointPath, e.getMessage());
+        }
+    }
+
+    private void deleteCheckpoint() {
+        if (checkpointPath == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(checkpointPath);
+        } catch (IOException e) {
+            logger.warn("Failed to delete user directory sweep checkpoint {}: {}", checkpointPath, e.getMessage());
+        }
+    }
+}
@@ -4,33 +4,87 @@ import com.ashanhimantha.user_service.dto.request.AddressRequest;
 import com.ashanhimantha.user_service.dto.request.CreateAdminUserRequest;
 import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
 import com.ashanhimantha.user_service.entity.Address;
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.ashanhimantha.user_service.exception.CognitoThrottledException;
+import com.ashanhimantha.user_service.exception.CognitoUserNotFoundException;
 import com.ashanhimantha.user_service.repository.AddressRepository;
 import com.ashanhimantha.user_service.service.CognitoUserService;
 import com.ashanhimantha.user_service.service.CognitoUserService.PaginatedUserResponse;
 import com.ashanhimantha.user_service.service.UserService;
+import com.ashanhimantha.user_service.service.cache.AddressCache;
+import com.ashanhimantha.user_service.service.cache.ProfileCache;
+import com.ashanhimantha.user_service.service.cache.SubUsernameCache;
+import com.ashanhimantha.user_service.util.SingleFlight;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class UserServiceImpl extends UserService {
 
     private final CognitoUserService cognitoUserService;
     private final AddressRepository addressRepository;
-
-    public UserServiceImpl(CognitoUserService cognitoUserService, AddressRepository addressRepository) {
+    private final SubUsernameCache subUsernameCache;
+    private final ProfileCache profileCache;
+    private final SingleFlight<String, CognitoUserResponse> profileLookups = new SingleFlight<>();
+    private final Duration profileFetchTimeout;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int addressLookupChunkSize;
+
+    public UserServiceImpl(CognitoUserService cognitoUserService, AddressRepository addressRepository,
+                           SubUsernameCache subUsernameCache, ProfileCache profileCache,
+                           @Value("${profile.fetch-timeout-ms:5000}") long profileFetchTimeoutMs,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${address.lookup.chunk-size:1000}") int addressLookupChunkSize) {
         this.cognitoUserService = cognitoUserService;
         this.addressRepository = addressRepository;
+        this.subUsernameCache = subUsernameCache;
+        this.profileCache = profileCache;
+        this.profileFetchTimeout = Duration.ofMillis(profileFetchTimeoutMs);
+        this.eventPublisher = eventPublisher;
+        this.addressLookupChunkSize = addressLookupChunkSize;
     }
 
     // === Cognito User Management Implementations ===
     @Override
     public CognitoUserResponse getCognitoUserProfile(String userId) {
         validateUserId(userId);
-        String username = getUsernameFromUserId(userId);
-        return cognitoUserService.getUserProfileByUsername(username);
+        // Concurrent requests for the same user share one in-flight Cognito fetch.
+        return profileLookups.execute(userId,
+                () -> withUsername(userId, cognitoUserService::getUserProfileByUsername),
+                profileFetchTimeout);
+    }
+
+    @Override
+    public CognitoUserResponse getProfileFromClaims(Map<String, Object> claims) {
+        CognitoUserResponse profile = CognitoUserResponse.fromJwtClaims(claims);
+        validateUserId(profile.getId());
+        // Claims win; the cache (refreshed in the background) only fills what the token does not carry.
+        profileCache.getIfLoaded(profile.getId()).ifPresent(cached -> {
+            if (profile.getEmail() == null) profile.setEmail(cached.getEmail());
+            if (profile.getFirstName() == null) profile.setFirstName(cached.getFirstName());
+            if (profile.getLastName() == null) profile.setLastName(cached.getLastName());
+            if (profile.getPhone() == null) profile.setPhone(cached.getPhone());
+            if (profile.getStatus() == null) profile.setStatus(cached.getStatus());
+            if (profile.getCreatedDate() == null) profile.setCreatedDate(cached.getCreatedDate());
+            if (profile.getLastModifiedDate() == null) profile.setLastModifiedDate(cached.getLastModifiedDate());
+            if (!claims.containsKey("email_verified")) profile.setEmailVerified(cached.isEmailVerified());
+            if (!claims.containsKey("cognito:groups")) profile.setUserGroups(cached.getUserGroups());
+        });
+        return profile;
     }
 
     @Override
@@ -48,20 +102,25 @@ public class UserServiceImpl extends UserService {
     @Override
     public void syncCognitoUserRoles(String userId, List<String> newRoles) {
         validateUserId(userId);
-        String username = getUsernameFromUserId(userId);
-        cognitoUserService.syncUserRoles(username, newRoles);
+        withUsername(userId, username -> {
+            cognitoUserService.syncUserRoles(username, newRoles);
+            return null;
+        });
     }
 
     @Override
     public void updateCognitoUserStatus(String userId, boolean enable) {
         validateUserId(userId);
-        String username = getUsernameFromUserId(userId);
-        cognitoUserService.updateUserStatus(username, enable);
+        withUsername(userId, username -> {
+            cognitoUserService.updateUserStatus(username, enable);
+            return null;
+        });
     }
 
 
     // === Local Address Management Implementations ===
     @Override
+    @CacheEvict(cacheNames = AddressCache.NAME, key = "#userId")
     public Address addAddressForUser(String userId, AddressRequest addressRequest) {
         validateUserId(userId);
         Address newAddress = new Address();
@@ -71,38 +130,61 @@ public class UserServiceImpl extends UserService {
         newAddress.setState(addressRequest.getState());
         newAddress.setPostalCode(addressRequest.getPostalCode());
         newAddress.setCountry(addressRequest.getCountry());
-        return addressRepository.save(newAddress);
+        Address saved = addressRepository.save(newAddress);
+        eventPublisher.publishEvent(new AddressChangedEvent(userId));
+        return saved;
     }
 
     @Override
+    @Cacheable(cacheNames = AddressCache.NAME, key = "#userId")
     public List<Address> getAddressesForUser(String userId) {
         validateUserId(userId);
         return addressRepository.findByUserId(userId);
     }
 
+    /**
+     * One {@code IN} query per {@code address.lookup.chunk-size} distinct users. Reads the table directly: a
+     * reconciliation batch would only push per-user lists out of the address cache.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, List<Address>> getAddressesForUsers(Collection<String> userIds) {
+        Map<String, List<Address>> addressesByUser = new LinkedHashMap<>();
+        userIds.forEach(userId -> {
+            validateUserId(userId);
+            addressesByUser.putIfAbsent(userId, new ArrayList<>());
+        });
+        List<String> distinctUserIds = new ArrayList<>(addressesByUser.keySet());
+        for (int from = 0; from < distinctUserIds.size(); from += addressLookupChunkSize) {
+            List<String> chunk = distinctUserIds.subList(from, Math.min(from + addressLookupChunkSize, distinctUserIds.size()));
+            addressRepository.findByUserIdInOrderByUserIdAscIdAsc(chunk)
+                    .forEach(address -> addressesByUser.get(address.getUserId()).add(address));
+        }
+        return addressesByUser;
+    }
+
     @Override
+    @CacheEvict(cacheNames = AddressCache.NAME, key = "#userId")
     public Optional<Address> updateUserAddress(String userId, Long addressId, AddressRequest addressRequest) {
         validateUserId(userId);
-        return addressRepository.findByIdAndUserId(addressId, userId)
-                .map(addressToUpdate -> {
-                    addressToUpdate.setStreet(addressRequest.getStreet());
-                    addressToUpdate.setCity(addressRequest.getCity());
-                    addressToUpdate.setState(addressRequest.getState());
-                    addressToUpdate.setPostalCode(addressRequest.getPostalCode());
-                    addressToUpdate.setCountry(addressRequest.getCountry());
-                    return addressRepository.save(addressToUpdate);
-                });
+        // One conditional UPDATE ... RETURNING: the ownership check and the write cannot be separated by another edit.
+        Optional<Address> updated = addressRepository.updateByIdAndUserId(addressId, userId,
+                addressRequest.getStreet(), addressRequest.getCity(), addressRequest.getState(),
+                addressRequest.getPostalCode(), addressRequest.getCountry());
+        updated.ifPresent(address -> eventPublisher.publishEvent(new AddressChangedEvent(userId)));
+        return updated;
     }
 
     @Override
     @Transactional
+    @CacheEvict(cacheNames = AddressCache.NAME, key = "#userId")
     public boolean deleteUserAddress(String userId, Long addressId) {
         validateUserId(userId);
-        if (addressRepository.findByIdAndUserId(addressId, userId).isPresent()) {
-            addressRepository.deleteById(addressId);
-            return true;
+        if (addressRepository.deleteByIdAndUserId(addressId, userId) == 0) {
+            return false;
         }
-        return false;
+        eventPublisher.publishEvent(new AddressChangedEvent(userId));
+        return true;
     }
 
     @Override
@@ -116,22 +198,49 @@ public class UserServiceImpl extends UserService {
         return cognitoUserService.searchUsers(email, firstName, lastName, username, status, role);
     }
 
+    @Override
+    public PaginatedUserResponse searchCognitoUsersPage(String email, String firstName, String lastName, String username, String status, String role, int limit, String cursor) {
+        return cognitoUserService.searchUsersPage(email, firstName, lastName, username, status, role, limit, cursor);
+    }
+
+    @Override
+    public Stream<CognitoUserResponse> streamCognitoUsers(String email, String firstName, String lastName, String username, String status, String role) {
+        return cognitoUserService.streamSearchUsers(email, firstName, lastName, username, status, role);
+    }
+
     private String getUsernameFromUserId(String userId) {
-        // Get user by ID and extract username
-        // Since we need to find the user by their sub (user ID), we'll use the existing search functionality
+        // The sub -> username mapping never changes, so it is served from cache after the first ListUsers lookup.
         try {
-            return cognitoUserService.getUsernameByUserId(userId);
+            return subUsernameCache.getUsername(userId, cognitoUserService::getUsernameByUserId);
+        } catch (CognitoUserNotFoundException | CognitoThrottledException e) {
+            throw e;
         } catch (Exception e) {
             throw new RuntimeException("User not found with ID: " + userId, e);
         }
     }
 
+    /**
+     * Resolves the username for the userId and runs the Cognito operation with it.
+     * If Cognito no longer knows that username, the user was deleted and the cached mapping is dropped.
+     */
+    private <T> T withUsername(String userId, Function<String, T> operation) {
+        String username = getUsernameFromUserId(userId);
+        try {
+            return operation.apply(username);
+        } catch (CognitoUserNotFoundException e) {
+            subUsernameCache.evict(userId);
+            throw e;
+        }
+    }
+
     @Override
     public List<CognitoUserResponse> getEmployeeUsers() {
-        // Here we define which groups are considered "employees".
-        List<String> employeeGroups = List.of("SuperAdmins", "DataStewards");
+        // Which groups count as "employees" is configured by directory.employee-groups.
+        return cognitoUserService.findEmployeeUsers();
+    }
 
-        // Call the new method in our Cognito service to get the users.
-        return cognitoUserService.findUsersByGroups(employeeGroups);
+    @Override
+    public Stream<CognitoUserResponse> streamEmployeeUsers() {
+        return cognitoUserService.streamEmployeeUsers();
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package com.ashanhimantha.user_service.service.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * A user change pushed to the service, normalized from one of two payload shapes:
+ * <ul>
+ *     <li>a Cognito Lambda trigger event ({@code triggerSource}, {@code userName},
+ *     {@code request.userAttributes}, and for pre-token-generation {@code request.groupConfiguration}),
+ *     forwarded as-is by the trigger function;</li>
+ *     <li>an EventBridge event, whose {@code detail} is either such a trigger event or the CloudTrail record
+ *     of a Cognito API call ({@code eventName}, {@code requestParameters.username}).</li>
+ * </ul>
+ * Trigger events carry the user's attributes and are applied directly. CloudTrail records only name the
+ * user, so they become a {@link Kind#REFRESH} (re-read from Cognito) or a {@link Kind#DELETE}.
+ * <p>
+ * {@code key} identifies repeated deliveries: the EventBridge event id, or for a trigger event a digest
+ * of its source, user and content, so an identical sign-in replayed twice is applied once.
+ */
+record IngestedUserEvent(String key, Kind kind, String username, Map<String, String> attributes, List<String> groups) {
+
+    enum Kind {
+        /** Attributes (and possibly groups) are in the event. */
+        ATTRIBUTES,
+        /** Only the username is known; the profile is read from Cognito. */
+        REFRESH,
+        /** The user was deleted. */
+        DELETE
+    }
+
+    private static final Set<String> DELETE_CALLS = Set.of("AdminDeleteUser", "DeleteUser");
+
+    /**
+     * @return the normalized event, or empty if the payload is not a user change this service understands
+     */
+    static Optional<IngestedUserEvent> parse(JsonNode event) {
+        if (event == null || !event.isObject()) {
+            return Optional.empty();
+        }
+        if (event.has("detail-type") && event.has("detail")) {
+            String eventId = event.path("id").asText(null);
+            JsonNode detail = event.get("detail");
+            if (detail.has("triggerSource")) {
+                return fromTrigger(detail).map(parsed -> eventId == null ? parsed : parsed.withKey("eventbridge:" + eventId));
+            }
+            return fromCloudTrail(eventId, detail);
+        }
+        if (event.has("triggerSource")) {
+            return fromTrigger(event);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<IngestedUserEvent> fromTrigger(JsonNode event) {
+        String username = event.path("userName").asText(null);
+        if (username == null || username.isBlank()) {
+            return Optional.empty();
+        }
+        Map<String, String> attributes = new TreeMap<>();
+        event.path("request").path("userAttributes").fields()
+                .forEachRemaining(field -> attributes.put(field.getKey(), field.getValue().asText()));
+        List<String> groups = null;
+        JsonNode override = event.path("request").path("groupConfiguration").path("groupsToOverride");
+        if (override.isArray()) {
+            groups = new ArrayList<>();
+            for (JsonNode group : override) {
+                groups.add(group.asText());
+            }
+        }
+        String key = "trigger:" + event.path("triggerSource").asText() + ":" + username + ":"
+                + digest(attributes + "|" + groups);
+        Kind kind = attributes.isEmpty() ? Kind.REFRESH : Kind.ATTRIBUTES;
+        return Optional.of(new IngestedUserEvent(key, kind, username, attributes, groups));
+    }
+
+    private static Optional<IngestedUserEvent> fromCloudTrail(String eventId, JsonNode detail) {
+        String eventName = detail.path("eventName").asText("");
+        String username = detail.path("requestParameters").path("username").asText(null);
+        // CloudTrail redacts usernames for unauthenticated calls; those cannot be attributed to a user.
+        if (eventId == null || username == null || username.isBlank() || username.startsWith("HIDDEN_DUE_TO")) {
+            return Optional.empty();
+        }
+        Kind kind = DELETE_CALLS.contains(eventName) ? Kind.DELETE : Kind.REFRESH;
+        return Optional.of(new IngestedUserEvent("eventbridge:" + eventId, kind, username, Map.of(), null));
+    }
+
+    private static String digest(String content) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private IngestedUserEvent withKey(String newKey) {
+        return new IngestedUserEvent(newKey, kind, username, attributes, groups);
+    }
+}
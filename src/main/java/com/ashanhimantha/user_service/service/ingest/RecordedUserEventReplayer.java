@@ -0,0 +1,72 @@
+package com.ashanhimantha.user_service.service.ingest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Local stand-in for the Cognito triggers and EventBridge: at startup, feeds a file of recorded events
+ * through the {@link UserEventIngestor} exactly as the ingestion endpoint would. The file is either a JSON
+ * array or one JSON event per line. Only active when {@code ingest.replay.path} is set.
+ */
+@Component
+@ConditionalOnProperty(name = "ingest.replay.path")
+public class RecordedUserEventReplayer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordedUserEventReplayer.class);
+
+    private final UserEventIngestor ingestor;
+    private final ObjectMapper objectMapper;
+    private final Path recording;
+
+    public RecordedUserEventReplayer(UserEventIngestor ingestor, ObjectMapper objectMapper,
+                                     @Value("${ingest.replay.path}") String recording) {
+        this.ingestor = ingestor;
+        this.objectMapper = objectMapper;
+        this.recording = Path.of(recording);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        int received = 0;
+        int accepted = 0;
+        int duplicates = 0;
+        try (BufferedReader reader = Files.newBufferedReader(recording)) {
+            reader.mark(1);
+            int first = reader.read();
+            reader.reset();
+            if (first == '[') {
+                UserEventIngestor.IngestResult result = ingestor.accept(objectMapper.readTree(reader));
+                received = result.received();
+                accepted = result.accepted();
+                duplicates = result.duplicates();
+            } else {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode event = objectMapper.readTree(line);
+                    UserEventIngestor.IngestResult result = ingestor.accept(event);
+                    received += result.received();
+                    accepted += result.accepted();
+                    duplicates += result.duplicates();
+                }
+            }
+        }
+        ingestor.flush();
+        logger.info("Replayed {} recorded user events from {}: {} applied, {} duplicates",
+                received, recording, accepted, duplicates);
+    }
+}
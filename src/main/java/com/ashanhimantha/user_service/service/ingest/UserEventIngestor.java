@@ -0,0 +1,219 @@
+package com.ashanhimantha.user_service.service.ingest;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.ashanhimantha.user_service.exception.CognitoUserNotFoundException;
+import com.ashanhimantha.user_service.service.CognitoUserService;
+import com.ashanhimantha.user_service.service.directory.UserDirectory;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies user changes pushed by Cognito Lambda triggers or EventBridge (see {@link IngestedUserEvent}).
+ * <p>
+ * {@link #accept} only parses, de-duplicates and queues, so a trigger function gets its answer without
+ * waiting on anything. Queued events are coalesced per username (the latest wins) and applied in batches
+ * every {@code ingest.flush-interval-ms}, or as soon as {@code ingest.batch-size} users are pending.
+ * Applying an event publishes a {@link UserChangedEvent}, which updates the directory, the read model and
+ * the caches, and reaches the other replicas, exactly like a change made through this service.
+ * <p>
+ * Deliveries whose key was seen within {@code ingest.dedup-window-ms} are dropped as duplicates.
+ */
+@Service
+public class UserEventIngestor implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserEventIngestor.class);
+
+    public record IngestResult(int received, int accepted, int duplicates, int ignored) {
+    }
+
+    private final UserDirectory userDirectory;
+    private final CognitoUserService cognitoUserService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final Cache<String, Boolean> recentKeys;
+
+    private final Map<String, IngestedUserEvent> pending = new LinkedHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong ignored = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    public UserEventIngestor(UserDirectory userDirectory,
+                             CognitoUserService cognitoUserService,
+                             ApplicationEventPublisher eventPublisher,
+                             @Value("${ingest.batch-size:500}") int batchSize,
+                             @Value("${ingest.dedup-window-ms:600000}") long dedupWindowMs,
+                             @Value("${ingest.dedup-maximum-size:100000}") long dedupMaximumSize) {
+        this.userDirectory = userDirectory;
+        this.cognitoUserService = cognitoUserService;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.recentKeys = Caffeine.newBuilder()
+                .maximumSize(dedupMaximumSize)
+                .expireAfterWrite(Duration.ofMillis(dedupWindowMs))
+                .build();
+    }
+
+    /**
+     * Queues one event, or every element of an array of events.
+     */
+    public IngestResult accept(JsonNode payload) {
+        List<JsonNode> events = new ArrayList<>();
+        if (payload != null && payload.isArray()) {
+            payload.forEach(events::add);
+        } else {
+            events.add(payload);
+        }
+
+        int acceptedNow = 0;
+        int duplicatesNow = 0;
+        boolean flushNow;
+        synchronized (pending) {
+            for (JsonNode event : events) {
+                Optional<IngestedUserEvent> parsed = IngestedUserEvent.parse(event);
+                if (parsed.isEmpty()) {
+                    continue;
+                }
+                if (recentKeys.asMap().putIfAbsent(parsed.get().key(), Boolean.TRUE) != null) {
+                    duplicatesNow++;
+                    continue;
+                }
+                // Re-inserting moves the user to the back, so a batch is applied in arrival order.
+                pending.remove(parsed.get().username());
+                pending.put(parsed.get().username(), parsed.get());
+                acceptedNow++;
+            }
+            flushNow = pending.size() >= batchSize;
+        }
+        int ignoredNow = events.size() - acceptedNow - duplicatesNow;
+        accepted.addAndGet(acceptedNow);
+        duplicates.addAndGet(duplicatesNow);
+        ignored.addAndGet(ignoredNow);
+        if (flushNow) {
+            flush();
+        }
+        return new IngestResult(events.size(), acceptedNow, duplicatesNow, ignoredNow);
+    }
+
+    /**
+     * Applies everything queued so far.
+     */
+    @Scheduled(fixedDelayString = "${ingest.flush-interval-ms:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<IngestedUserEvent> batch;
+            synchronized (pending) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = new ArrayList<>(pending.values());
+                pending.clear();
+            }
+            for (IngestedUserEvent event : batch) {
+                try {
+                    apply(event);
+                    applied.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // The background sync will pick the change up; it is only later, not lost.
+                    failed.incrementAndGet();
+                    logger.warn("Failed to apply pushed change for user {}: {}", event.username(), e.getMessage());
+                }
+            }
+            logger.debug("Applied {} pushed user changes", batch.size());
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        register(registry, "accepted", accepted, "Pushed user events queued for applying");
+        register(registry, "duplicate", duplicates, "Pushed user events dropped as repeated deliveries");
+        register(registry, "ignored", ignored, "Pushed payloads that are not user changes");
+        register(registry, "applied", applied, "Pushed user changes applied");
+        register(registry, "failed", failed, "Pushed user changes that could not be applied");
+        Gauge.builder("user.ingest.pending", this, ingestor -> {
+                    synchronized (ingestor.pending) {
+                        return ingestor.pending.size();
+                    }
+                })
+                .description("Users with pushed changes waiting for the next batch").register(registry);
+    }
+
+    private void register(MeterRegistry registry, String outcome, AtomicLong count, String description) {
+        FunctionCounter.builder("user.ingest.events", count, AtomicLong::get)
+                .tags(Tags.of("outcome", outcome)).description(description).register(registry);
+    }
+
+    private void apply(IngestedUserEvent event) {
+        Optional<CognitoUserResponse> local = userDirectory.get(event.username());
+        switch (event.kind()) {
+            case ATTRIBUTES -> eventPublisher.publishEvent(new UserChangedEvent.Upserted(merge(event, local.orElse(null))));
+            case REFRESH -> refresh(event.username(), local);
+            case DELETE -> eventPublisher.publishEvent(
+                    new UserChangedEvent.Removed(event.username(), local.map(CognitoUserResponse::getId).orElse(null)));
+        }
+    }
+
+    private void refresh(String username, Optional<CognitoUserResponse> local) {
+        CognitoUserResponse current;
+        try {
+            current = cognitoUserService.getUserProfileByUsername(username);
+        } catch (CognitoUserNotFoundException e) {
+            eventPublisher.publishEvent(new UserChangedEvent.Removed(username, local.map(CognitoUserResponse::getId).orElse(null)));
+            return;
+        }
+        eventPublisher.publishEvent(new UserChangedEvent.Upserted(current));
+    }
+
+    /**
+     * Builds the user from the trigger's attributes. Triggers do not carry the account state or dates,
+     * so those are kept from the local copy; the background sync corrects them if they moved.
+     */
+    private static CognitoUserResponse merge(IngestedUserEvent event, CognitoUserResponse local) {
+        Map<String, String> attributes = event.attributes();
+        CognitoUserResponse user = new CognitoUserResponse();
+        user.setId(attributes.getOrDefault("sub", local != null ? local.getId() : null));
+        user.setUsername(event.username());
+        user.setEmail(attributes.get("email"));
+        user.setFirstName(attributes.get("given_name"));
+        user.setLastName(attributes.get("family_name"));
+        user.setPhone(attributes.get("phone_number"));
+        user.setEmailVerified(Boolean.parseBoolean(attributes.get("email_verified")));
+        user.setStatus(local != null ? local.getStatus() : "ENABLED");
+        user.setCreatedDate(local != null ? local.getCreatedDate() : null);
+        user.setLastModifiedDate(local != null ? local.getLastModifiedDate() : null);
+        if (event.groups() != null) {
+            user.setUserGroups(event.groups());
+        } else {
+            user.setUserGroups(local != null && local.getUserGroups() != null ? local.getUserGroups() : List.of());
+        }
+        return user;
+    }
+}
@@ -0,0 +1,291 @@
+package com.ashanhimantha.user_service.service.readmodel;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.entity.DirectoryUser;
+import com.ashanhimantha.user_service.enums.DirectoryBackend;
+import com.ashanhimantha.user_service.repository.DirectoryUserRepository;
+import com.ashanhimantha.user_service.service.directory.SearchCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * PostgreSQL read model of the user pool ({@code users} and {@code user_groups}), shared by all replicas.
+ * <p>
+ * Writes are plain JDBC batches ({@code INSERT ... ON CONFLICT}) so that a full sync does not load entities;
+ * reads go through JPA. "Contains" filters compile to {@code lower(column) LIKE '%term%'}, which PostgreSQL
+ * answers from the pg_trgm GIN indexes created by the V2 migration; status uses an expression
+ * b-tree index and group lookups the b-tree index on {@code user_groups.group_name}. All listings page by
+ * username (keyset), so streams fetch one bounded page at a time instead of holding a transaction open.
+ */
+@Service
+public class UserReadModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserReadModel.class);
+
+    private static final String UPSERT_USER = "INSERT INTO users (id, username, email, first_name, last_name, phone, status, " +
+            "email_verified, created_at, last_modified_at, synced_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (id) DO UPDATE SET username = EXCLUDED.username, email = EXCLUDED.email, " +
+            "first_name = EXCLUDED.first_name, last_name = EXCLUDED.last_name, phone = EXCLUDED.phone, " +
+            "status = EXCLUDED.status, email_verified = EXCLUDED.email_verified, created_at = EXCLUDED.created_at, " +
+            "last_modified_at = EXCLUDED.last_modified_at, synced_at = EXCLUDED.synced_at";
+
+    private final DirectoryBackend backend;
+    private final DirectoryUserRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int pageSize;
+    private final int batchSize;
+
+    public UserReadModel(@Value("${directory.backend:MEMORY}") DirectoryBackend backend,
+                         DirectoryUserRepository repository,
+                         JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${directory.read-model.page-size:500}") int pageSize,
+                         @Value("${directory.read-model.batch-size:500}") int batchSize) {
+        this.backend = backend;
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pageSize = pageSize;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isEnabled() {
+        return backend == DirectoryBackend.POSTGRES;
+    }
+
+    public boolean isPopulated() {
+        return repository.count() > 0;
+    }
+
+    /**
+     * Makes the read model match a full scan of the pool: every scanned user is upserted in batches, then
+     * users that neither the scan saw nor anything wrote since it started are deleted. Users in
+     * {@code changedSinceScan} were written after the scan read them and are left as they are; the set may
+     * keep growing while this runs.
+     *
+     * @param scanStarted when the scan began
+     */
+    public void replaceAll(Collection<CognitoUserResponse> users, Instant scanStarted, Set<String> changedSinceScan) {
+        long started = System.currentTimeMillis();
+        Instant syncStarted = Instant.now();
+        List<CognitoUserResponse> batch = new ArrayList<>(batchSize);
+        for (CognitoUserResponse user : users) {
+            if (user.getId() == null || user.getUsername() == null || changedSinceScan.contains(user.getUsername())) {
+                continue;
+            }
+            batch.add(user);
+            if (batch.size() == batchSize) {
+                writeBatch(batch, syncStarted);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch, syncStarted);
+        }
+        Integer removed = transactionTemplate.execute(status -> {
+            Timestamp cutoff = Timestamp.from(scanStarted);
+            jdbcTemplate.update("DELETE FROM user_groups WHERE user_id IN (SELECT id FROM users WHERE synced_at < ?)", cutoff);
+            return jdbcTemplate.update("DELETE FROM users WHERE synced_at < ?", cutoff);
+        });
+        logger.info("User read model synced: {} users written, {} removed in {} ms",
+                users.size(), removed, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Inserts or replaces a single user and its group memberships.
+     */
+    public void upsert(CognitoUserResponse user) {
+        writeBatch(List.of(user), Instant.now());
+    }
+
+    public void remove(String userId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM user_groups WHERE user_id = ?", userId);
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        });
+    }
+
+    public List<CognitoUserResponse> search(SearchCriteria criteria) {
+        return streamSearch(criteria).collect(Collectors.toList());
+    }
+
+    public Stream<CognitoUserResponse> streamSearch(SearchCriteria criteria) {
+        return pages(after -> searchAfter(after, pageSize, criteria));
+    }
+
+    /**
+     * Same contract as {@code UserDirectory.searchAfter}: up to {@code limit} matches after the cursor
+     * username, plus one look-ahead element if more exist.
+     */
+    public List<CognitoUserResponse> searchAfter(String afterUsername, int limit, SearchCriteria criteria) {
+        Specification<DirectoryUser> spec = matching(criteria, afterUsername);
+        List<DirectoryUser> page = repository.findBy(spec, query -> query
+                .sortBy(Sort.by("username"))
+                .limit(limit + 1)
+                .all());
+        return page.stream().map(DirectoryUser::toResponse).collect(Collectors.toList());
+    }
+
+    public List<CognitoUserResponse> findByAnyGroup(Collection<String> groupNames) {
+        return streamByAnyGroup(groupNames).collect(Collectors.toList());
+    }
+
+    public Stream<CognitoUserResponse> streamByAnyGroup(Collection<String> groupNames) {
+        if (groupNames.isEmpty()) {
+            return Stream.empty();
+        }
+        return pages(after -> repository.findByAnyGroupAfter(groupNames, after == null ? "" : after, Limit.of(pageSize))
+                .stream()
+                .map(DirectoryUser::toResponse)
+                .collect(Collectors.toList()));
+    }
+
+    private void writeBatch(List<CognitoUserResponse> users, Instant syncedAt) {
+        Timestamp synced = Timestamp.from(syncedAt);
+        transactionTemplate.executeWithoutResult(status -> {
+            // A username freed by a deleted user may already belong to a new sub; drop the old row first.
+            List<Object[]> usernames = users.stream()
+                    .map(user -> new Object[]{user.getUsername(), user.getId()})
+                    .collect(Collectors.toList());
+            jdbcTemplate.batchUpdate("DELETE FROM user_groups WHERE user_id IN " +
+                    "(SELECT id FROM users WHERE username = ? AND id <> ?)", usernames);
+            jdbcTemplate.batchUpdate("DELETE FROM users WHERE username = ? AND id <> ?", usernames);
+            jdbcTemplate.batchUpdate(UPSERT_USER, users, users.size(), (statement, user) -> {
+                statement.setString(1, user.getId());
+                statement.setString(2, user.getUsername());
+                statement.setString(3, user.getEmail());
+                statement.setString(4, user.getFirstName());
+                statement.setString(5, user.getLastName());
+                statement.setString(6, user.getPhone());
+                statement.setString(7, user.getStatus());
+                statement.setBoolean(8, user.isEmailVerified());
+                statement.setTimestamp(9, timestamp(user.getCreatedDate()));
+                statement.setTimestamp(10, timestamp(user.getLastModifiedDate()));
+                statement.setTimestamp(11, synced);
+            });
+            List<Object[]> ids = users.stream().map(user -> new Object[]{user.getId()}).collect(Collectors.toList());
+            jdbcTemplate.batchUpdate("DELETE FROM user_groups WHERE user_id = ?", ids);
+            List<Object[]> memberships = new ArrayList<>();
+            for (CognitoUserResponse user : users) {
+                if (user.getUserGroups() != null) {
+                    for (String group : new LinkedHashSet<>(user.getUserGroups())) {
+                        memberships.add(new Object[]{user.getId(), group});
+                    }
+                }
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO user_groups (user_id, group_name) VALUES (?, ?)", memberships);
+        });
+    }
+
+    /**
+     * Lazily concatenates keyset pages until one comes back short.
+     */
+    private static Stream<CognitoUserResponse> pages(Function<String, List<CognitoUserResponse>> pageAfter) {
+        Iterator<CognitoUserResponse> iterator = new Iterator<>() {
+            private Iterator<CognitoUserResponse> page = Collections.emptyIterator();
+            private String lastUsername;
+            private boolean exhausted;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && !exhausted) {
+                    List<CognitoUserResponse> next = pageAfter.apply(lastUsername);
+                    exhausted = next.isEmpty();
+                    if (!exhausted) {
+                        lastUsername = next.get(next.size() - 1).getUsername();
+                    }
+                    page = next.iterator();
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public CognitoUserResponse next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private static Specification<DirectoryUser> matching(SearchCriteria criteria, String afterUsername) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            contains(predicates, root, cb, "email", criteria.email());
+            contains(predicates, root, cb, "firstName", criteria.firstName());
+            contains(predicates, root, cb, "lastName", criteria.lastName());
+            contains(predicates, root, cb, "username", criteria.username());
+            String status = normalize(criteria.status());
+            if (status != null) {
+                predicates.add(cb.equal(cb.lower(root.get("status")), status));
+            }
+            String role = normalize(criteria.role());
+            if (role != null) {
+                Subquery<String> memberships = query.subquery(String.class);
+                Root<DirectoryUser> member = memberships.correlate(root);
+                Join<DirectoryUser, String> group = member.join("groups");
+                memberships.select(group).where(cb.like(cb.lower(group), likePattern(role), '\\'));
+                predicates.add(cb.exists(memberships));
+            }
+            if (afterUsername != null) {
+                predicates.add(cb.greaterThan(root.get("username"), afterUsername));
+            }
+            return cb.and(predicates.toArray(Predicate[]::new));
+        };
+    }
+
+    private static void contains(List<Predicate> predicates, Root<DirectoryUser> root,
+                                 CriteriaBuilder cb, String attribute, String term) {
+        String normalized = normalize(term);
+        if (normalized != null) {
+            predicates.add(cb.like(cb.lower(root.get(attribute)), likePattern(normalized), '\\'));
+        }
+    }
+
+    private static String likePattern(String term) {
+        return "%" + term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    private static String normalize(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Timestamp timestamp(String isoDate) {
+        if (isoDate == null) {
+            return null;
+        }
+        try {
+            return Timestamp.from(Instant.parse(isoDate));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.ashanhimantha.user_service.service.retention;
+
+import com.ashanhimantha.user_service.enums.AddressRetentionMode;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves soft-deleted addresses out of {@code addresses} once they are older than
+ * {@code address.retention.period-ms}, so the live table (and its indexes) only grow with live rows.
+ * Depending on {@code address.retention.mode} the rows are copied to {@code addresses_archive} or dropped.
+ * <p>
+ * Work is done in batches of {@code address.retention.batch-size} rows, each one statement and so one short
+ * transaction, with a pause in between, so a large backlog never holds locks for long or floods the WAL.
+ * Rows are claimed with {@code SKIP LOCKED}, so replicas running the job at the same time split the work
+ * instead of waiting on each other. A run stops after {@code address.retention.max-batches} batches and the
+ * next run continues.
+ */
+@Component
+public class AddressRetentionJob implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AddressRetentionJob.class);
+
+    private static final String EXPIRED_BATCH = "SELECT id FROM addresses " +
+            "WHERE NOT active AND deleted_at < ? " +
+            "ORDER BY deleted_at LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    /** Rows soft-deleted without a timestamp (e.g. by a replica still on the old code) start their retention now. */
+    private static final String STAMP_UNDATED = "UPDATE addresses SET deleted_at = now() WHERE NOT active AND deleted_at IS NULL";
+
+    private static final String ARCHIVE_BATCH = "WITH batch AS (" + EXPIRED_BATCH + "), " +
+            "moved AS (DELETE FROM addresses a USING batch WHERE a.id = batch.id " +
+            "RETURNING a.id, a.user_id, a.street, a.city, a.state, a.postal_code, a.country, a.deleted_at) " +
+            "INSERT INTO addresses_archive (id, user_id, street, city, state, postal_code, country, deleted_at, archived_at) " +
+            "SELECT id, user_id, street, city, state, postal_code, country, deleted_at, now() FROM moved";
+
+    private static final String PURGE_BATCH = "WITH batch AS (" + EXPIRED_BATCH + ") " +
+            "DELETE FROM addresses a USING batch WHERE a.id = batch.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AddressRetentionMode mode;
+    private final long periodMillis;
+    private final int batchSize;
+    private final int maxBatches;
+    private final long batchPauseMillis;
+
+    private final AtomicLong archived = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+
+    public AddressRetentionJob(JdbcTemplate jdbcTemplate,
+                               @Value("${address.retention.mode:ARCHIVE}") AddressRetentionMode mode,
+                               @Value("${address.retention.period-ms:2592000000}") long periodMillis,
+                               @Value("${address.retention.batch-size:1000}") int batchSize,
+                               @Value("${address.retention.max-batches:100}") int maxBatches,
+                               @Value("${address.retention.batch-pause-ms:200}") long batchPauseMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.mode = mode;
+        this.periodMillis = periodMillis;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.batchPauseMillis = batchPauseMillis;
+    }
+
+    @Scheduled(fixedDelayString = "${address.retention.interval-ms:3600000}",
+            initialDelayString = "${address.retention.interval-ms:3600000}")
+    public void run() {
+        if (mode == AddressRetentionMode.OFF) {
+            return;
+        }
+        Timestamp cutoff = Timestamp.from(Instant.now().minusMillis(periodMillis));
+        String statement = mode == AddressRetentionMode.ARCHIVE ? ARCHIVE_BATCH : PURGE_BATCH;
+        AtomicLong counter = mode == AddressRetentionMode.ARCHIVE ? archived : purged;
+        long total = 0;
+        try {
+            jdbcTemplate.update(STAMP_UNDATED);
+            for (int batch = 0; batch < maxBatches; batch++) {
+                int moved = jdbcTemplate.update(statement, cutoff, batchSize);
+                counter.addAndGet(moved);
+                total += moved;
+                if (moved < batchSize) {
+                    break;
+                }
+                Thread.sleep(batchPauseMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            logger.warn("Address retention stopped after {} rows: {}", total, e.getMessage());
+        }
+        if (total > 0) {
+            logger.info("Address retention: {} soft-deleted addresses {}", total,
+                    mode == AddressRetentionMode.ARCHIVE ? "archived" : "purged");
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("address.retention.rows", archived, AtomicLong::get)
+                .tags(Tags.of("action", "archived")).description("Soft-deleted addresses moved to addresses_archive").register(registry);
+        FunctionCounter.builder("address.retention.rows", purged, AtomicLong::get)
+                .tags(Tags.of("action", "purged")).description("Soft-deleted addresses deleted").register(registry);
+    }
+}
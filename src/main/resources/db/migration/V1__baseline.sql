@@ -0,0 +1,49 @@
+-- Schema as previously created by spring.jpa.hibernate.ddl-auto=update. IF NOT EXISTS lets this run against
+-- a database that update already built (Flyway baselines such a database at version 0, see FlywayConfig).
+
+CREATE TABLE IF NOT EXISTS addresses (
+    id          bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    active      boolean DEFAULT true NOT NULL,
+    user_id     varchar(255) NOT NULL,
+    street      varchar(255),
+    city        varchar(255),
+    state       varchar(255),
+    postal_code varchar(255),
+    country     varchar(255)
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id               varchar(255) PRIMARY KEY,
+    username         varchar(255) NOT NULL,
+    email            varchar(255),
+    first_name       varchar(255),
+    last_name        varchar(255),
+    phone            varchar(255),
+    status           varchar(255),
+    email_verified   boolean NOT NULL,
+    created_at       timestamp(6) with time zone,
+    last_modified_at timestamp(6) with time zone,
+    synced_at        timestamp(6) with time zone NOT NULL
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS ux_users_username ON users (username);
+CREATE INDEX IF NOT EXISTS idx_users_synced_at ON users (synced_at);
+
+CREATE TABLE IF NOT EXISTS user_groups (
+    user_id    varchar(255) NOT NULL REFERENCES users (id),
+    group_name varchar(255) NOT NULL,
+    PRIMARY KEY (user_id, group_name)
+);
+
+CREATE INDEX IF NOT EXISTS idx_user_groups_group_name ON user_groups (group_name);
+
+CREATE TABLE IF NOT EXISTS coherence_events (
+    id         bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    origin     varchar(255) NOT NULL,
+    seq        bigint NOT NULL,
+    payload    text NOT NULL,
+    created_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_coherence_events_origin_seq ON coherence_events (origin, seq);
+CREATE INDEX IF NOT EXISTS idx_coherence_events_created_at ON coherence_events (created_at);
@@ -0,0 +1,27 @@
+-- Indexes JPA cannot declare, previously created by UserReadModel at startup. The trigram indexes answer
+-- the read model's "contains" filters (lower(column) LIKE '%term%'). Creating pg_trgm needs privileges the
+-- service role may not have; without the extension the trigram indexes are skipped and those filters fall
+-- back to sequential scans, as before.
+
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EXCEPTION
+    WHEN insufficient_privilege THEN
+        RAISE WARNING 'pg_trgm is not installed and cannot be created by this role; skipping trigram indexes';
+END
+$$;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_users_first_name_trgm ON users USING gin (lower(first_name) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_users_last_name_trgm ON users USING gin (lower(last_name) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (lower(username) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS idx_user_groups_group_name_trgm ON user_groups USING gin (lower(group_name) gin_trgm_ops);
+    END IF;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS idx_users_status_lower ON users (lower(status));
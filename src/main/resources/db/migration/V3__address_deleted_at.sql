@@ -0,0 +1,8 @@
+-- deleted_at is set by the soft delete from now on. Rows deleted before this migration get the migration
+-- time, so the retention period counts from here rather than letting the first retention run take them all.
+-- This runs in its own transaction, apart from the concurrent index builds in V5, so the column and its
+-- backfill are applied together or not at all.
+
+ALTER TABLE addresses ADD COLUMN IF NOT EXISTS deleted_at timestamp(6) with time zone;
+
+UPDATE addresses SET deleted_at = now() WHERE NOT active AND deleted_at IS NULL;
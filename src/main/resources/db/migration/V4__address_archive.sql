@@ -0,0 +1,15 @@
+-- Soft-deleted addresses moved out of the live table by AddressRetentionJob (address.retention.mode=ARCHIVE).
+
+CREATE TABLE IF NOT EXISTS addresses_archive (
+    id          bigint PRIMARY KEY,
+    user_id     varchar(255) NOT NULL,
+    street      varchar(255),
+    city        varchar(255),
+    state       varchar(255),
+    postal_code varchar(255),
+    country     varchar(255),
+    deleted_at  timestamp(6) with time zone,
+    archived_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_addresses_archive_user_id ON addresses_archive (user_id);
@@ -0,0 +1,40 @@
+-- Address lists (SELECT ... FROM addresses WHERE user_id = ? AND active) read only live rows. A partial index
+-- on user_id keeps soft-deleted rows out of it, and INCLUDE makes it covering, so the list query is an
+-- index-only scan once the table is vacuumed. One index serves both purposes; a separate narrow
+-- (user_id) WHERE active index would only add write cost.
+--
+-- The second index lets AddressRetentionJob pick the oldest soft-deleted rows (deleted_at, see V3) without
+-- reading live ones.
+--
+-- CONCURRENTLY keeps the table writable while the indexes build; it cannot run in a transaction, see the
+-- .conf file next to this script, nor under Flyway's transactional lock, see FlywayConfig.
+--
+-- A concurrent build that fails (a deadlock, a cancelled statement) leaves the index behind marked INVALID,
+-- and IF NOT EXISTS would then skip it on the next attempt. Each build therefore first drops an invalid
+-- leftover of the same name. To recover, run "flyway repair" to clear the failed entry from the schema
+-- history and migrate again. DROP INDEX inside the DO block is not concurrent and briefly locks the table,
+-- but only when there is a leftover.
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_index WHERE indexrelid = to_regclass('idx_addresses_user_id_active') AND NOT indisvalid) THEN
+        DROP INDEX idx_addresses_user_id_active;
+    END IF;
+END
+$$;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_addresses_user_id_active
+    ON addresses (user_id) INCLUDE (id, active, street, city, state, postal_code, country)
+    WHERE active;
+
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_index WHERE indexrelid = to_regclass('idx_addresses_deleted_at_inactive') AND NOT indisvalid) THEN
+        DROP INDEX idx_addresses_deleted_at_inactive;
+    END IF;
+END
+$$;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_addresses_deleted_at_inactive
+    ON addresses (deleted_at)
+    WHERE NOT active;
@@ -0,0 +1,119 @@
+package com.ashanhimantha.user_service.service.bulk;
+
+import com.ashanhimantha.user_service.dto.response.AddressUpsertResult;
+import com.ashanhimantha.user_service.dto.response.AddressUpsertResult.Status;
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.ashanhimantha.user_service.service.cache.AddressCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AddressBulkUpserterTests {
+
+	private static final String VALID = "\"street\":\"1 Main St\",\"city\":\"Colombo\",\"state\":\"Western\",\"postalCode\":\"00100\",\"country\":\"LK\"";
+
+	private final ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory();
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+	private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+	private final ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(AddressCache.NAME);
+	private final AddressBulkUpserter upserter = new AddressBulkUpserter(jdbcTemplate, mock(PlatformTransactionManager.class),
+			new ObjectMapper(), validatorFactory.getValidator(), cacheManager, eventPublisher, 3);
+
+	@AfterEach
+	void closeValidator() {
+		validatorFactory.close();
+	}
+
+	@Test
+	void writesValidRowsInBatchesAndReportsEveryRowInOrder() throws Exception {
+		when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), any())).thenReturn(List.of(101L), List.of(102L));
+		when(jdbcTemplate.batchUpdate(contains("UPDATE"), anyList(), anyInt(), any())).thenReturn(new int[][]{{1, 0}});
+		cacheManager.getCache(AddressCache.NAME).put("alice", List.of());
+
+		List<AddressUpsertResult> results = upsert(String.join("\n",
+				"{\"userId\":\"alice\"," + VALID + "}",
+				"{\"userId\":\"alice\",\"id\":7," + VALID + "}",
+				"{\"userId\":\"bob\",\"id\":8," + VALID + "}",
+				"{\"userId\":\"carol\",\"street\":\"\",\"city\":\"Kandy\",\"state\":\"Central\",\"postalCode\":\"!\",\"country\":\"LK\"}",
+				"{\"userId\":\"dave\",\"id\":\"not-a-number\"," + VALID + "}",
+				"{\"userId\":\"erin\"," + VALID + "}"));
+
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), results.stream().map(AddressUpsertResult::row).toList());
+		assertEquals(List.of(Status.CREATED, Status.UPDATED, Status.NOT_FOUND, Status.INVALID, Status.INVALID, Status.CREATED),
+				results.stream().map(AddressUpsertResult::status).toList());
+		assertEquals(101L, results.get(0).id());
+		assertEquals(7L, results.get(1).id());
+		assertEquals(102L, results.get(5).id());
+		assertEquals(List.of("postalCode: Invalid postal code format", "street: Street is required"), results.get(3).errors());
+		assertTrue(results.get(4).errors().get(0).startsWith("Unreadable row"));
+
+		verify(jdbcTemplate, times(2)).batchUpdate(contains("INSERT INTO addresses"), anyList(), anyInt(), any());
+		verify(eventPublisher).publishEvent(new AddressChangedEvent(List.of("alice")));
+		verify(eventPublisher).publishEvent(new AddressChangedEvent(List.of("erin")));
+		assertNull(cacheManager.getCache(AddressCache.NAME).get("alice"));
+	}
+
+	@Test
+	void aFailedBatchReportsItsRowsAsFailed() throws Exception {
+		when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), any())).thenReturn(List.of(101L, 102L));
+		when(jdbcTemplate.batchUpdate(contains("INSERT"), anyList(), anyInt(), any()))
+				.thenThrow(new DataIntegrityViolationException("value too long"));
+
+		List<AddressUpsertResult> results = upsert("[{\"userId\":\"alice\"," + VALID + "},{\"userId\":\"bob\"," + VALID + "}]");
+
+		assertEquals(List.of(Status.FAILED, Status.FAILED), results.stream().map(AddressUpsertResult::status).toList());
+		assertNull(results.get(0).id());
+	}
+
+	@Test
+	void anOverlongUserIdIsInvalidWithoutFailingItsBatch() throws Exception {
+		when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), any())).thenReturn(List.of(101L));
+
+		List<AddressUpsertResult> results = upsert("[{\"userId\":\"" + "u".repeat(256) + "\"," + VALID + "},{\"userId\":\"bob\"," + VALID + "}]");
+
+		assertEquals(List.of(Status.INVALID, Status.CREATED), results.stream().map(AddressUpsertResult::status).toList());
+		assertEquals(List.of("userId: User ID cannot be longer than 255 characters"), results.get(0).errors());
+	}
+
+	@Test
+	void malformedJsonEndsTheInputAfterWritingWhatCameBefore() throws Exception {
+		when(jdbcTemplate.queryForList(contains("nextval"), eq(Long.class), any())).thenReturn(List.of(101L));
+
+		List<AddressUpsertResult> results = upsert("{\"userId\":\"alice\"," + VALID + "}\n{\"userId\": bob}\n{\"userId\":\"carol\"," + VALID + "}");
+
+		assertEquals(List.of(Status.CREATED, Status.INVALID), results.stream().map(AddressUpsertResult::status).toList());
+		assertEquals(2L, results.get(1).row());
+		assertTrue(results.get(1).errors().get(0).startsWith("Malformed JSON"));
+	}
+
+	private List<AddressUpsertResult> upsert(String body) throws Exception {
+		List<AddressUpsertResult> results = new ArrayList<>();
+		upserter.upsert(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), results::add);
+		return results;
+	}
+}
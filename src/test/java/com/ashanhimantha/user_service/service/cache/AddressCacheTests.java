@@ -0,0 +1,82 @@
+package com.ashanhimantha.user_service.service.cache;
+
+import com.ashanhimantha.user_service.config.CacheConfig;
+import com.ashanhimantha.user_service.dto.request.AddressRequest;
+import com.ashanhimantha.user_service.entity.Address;
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.ashanhimantha.user_service.event.ChangeOrigin;
+import com.ashanhimantha.user_service.repository.AddressRepository;
+import com.ashanhimantha.user_service.service.CognitoUserService;
+import com.ashanhimantha.user_service.service.UserService;
+import com.ashanhimantha.user_service.service.impl.UserServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig(classes = {CacheConfig.class, AddressCache.class, UserServiceImpl.class})
+class AddressCacheTests {
+
+	private static final String USER_ID = "0b8c3e1a-5f7d-4a2b-9c6e-1d2f3a4b5c6d";
+	private static final String OTHER_USER_ID = "7e9f1a2b-3c4d-4e5f-8a9b-0c1d2e3f4a5b";
+
+	@Autowired
+	private UserService userService;
+	@Autowired
+	private ApplicationEventPublisher eventPublisher;
+
+	@MockitoBean
+	private AddressRepository addressRepository;
+	@MockitoBean
+	private CognitoUserService cognitoUserService;
+	@MockitoBean
+	private SubUsernameCache subUsernameCache;
+	@MockitoBean
+	private ProfileCache profileCache;
+
+	@Test
+	void readsAreServedFromTheCacheUntilAWriteEvictsThem() {
+		when(addressRepository.findByUserId(USER_ID)).thenReturn(List.of(new Address()));
+		when(addressRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(addressRepository.updateByIdAndUserId(eq(7L), eq(USER_ID), any(), any(), any(), any(), any()))
+				.thenReturn(Optional.of(new Address()));
+		when(addressRepository.deleteByIdAndUserId(7L, USER_ID)).thenReturn(1);
+
+		userService.getAddressesForUser(USER_ID);
+		userService.getAddressesForUser(USER_ID);
+		verify(addressRepository, times(1)).findByUserId(USER_ID);
+
+		userService.addAddressForUser(USER_ID, new AddressRequest());
+		userService.getAddressesForUser(USER_ID);
+		verify(addressRepository, times(2)).findByUserId(USER_ID);
+
+		userService.updateUserAddress(USER_ID, 7L, new AddressRequest());
+		userService.getAddressesForUser(USER_ID);
+		verify(addressRepository, times(3)).findByUserId(USER_ID);
+
+		userService.deleteUserAddress(USER_ID, 7L);
+		userService.getAddressesForUser(USER_ID);
+		verify(addressRepository, times(4)).findByUserId(USER_ID);
+	}
+
+	@Test
+	void writesOnOtherReplicasEvictToo() {
+		when(addressRepository.findByUserId(OTHER_USER_ID)).thenReturn(List.of());
+
+		userService.getAddressesForUser(OTHER_USER_ID);
+		ChangeOrigin.runReplicated(() -> eventPublisher.publishEvent(new AddressChangedEvent(OTHER_USER_ID)));
+		userService.getAddressesForUser(OTHER_USER_ID);
+
+		verify(addressRepository, times(2)).findByUserId(OTHER_USER_ID);
+	}
+}
@@ -0,0 +1,70 @@
+package com.ashanhimantha.user_service.service.cache;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.ashanhimantha.user_service.service.UserService;
+import com.ashanhimantha.user_service.service.directory.UserDirectory;
+import com.ashanhimantha.user_service.service.readmodel.UserReadModel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class UserChangeApplierTests {
+
+	private final UserDirectory directory = new UserDirectory(List.of("SuperAdmins", "DataStewards"));
+	@SuppressWarnings("unchecked")
+	private final ProfileCache profileCache = new ProfileCache(mock(ObjectProvider.class), 100, 60_000, 60_000, 1);
+	private final SubUsernameCache subUsernameCache = new SubUsernameCache(100, 1);
+	private final UserChangeApplier applier =
+			new UserChangeApplier(directory, mock(UserReadModel.class), profileCache, subUsernameCache);
+
+	@BeforeEach
+	void loadCopies() {
+		CognitoUserResponse bob = user("sub-bob", "bob@example.com", "ENABLED", "Suppliers");
+		directory.replaceAll(List.of(bob));
+		profileCache.put("sub-bob", user("sub-bob", "bob@example.com", "ENABLED", "Suppliers"));
+	}
+
+	@Test
+	void membershipChangesReachTheDirectoryAndTheProfileCache() {
+		applier.onUserChanged(new UserChangedEvent.GroupMembershipChanged("bob@example.com", "DataStewards", true));
+		applier.onUserChanged(new UserChangedEvent.GroupMembershipChanged("bob@example.com", "Suppliers", false));
+
+		assertEquals(List.of("DataStewards"), directory.groupsOf("bob@example.com").orElseThrow());
+		assertEquals(List.of("bob@example.com"), directory.findEmployees().stream().map(CognitoUserResponse::getUsername).toList());
+		assertEquals(List.of("DataStewards"), profileCache.getIfLoaded("sub-bob").orElseThrow().getUserGroups());
+	}
+
+	@Test
+	void statusChangesReachSearchesAndTheProfileCache() {
+		applier.onUserChanged(new UserChangedEvent.StatusChanged("bob@example.com", false));
+
+		assertEquals("DISABLED", directory.get("bob@example.com").orElseThrow().getStatus());
+		assertEquals("DISABLED", profileCache.getIfLoaded("sub-bob").orElseThrow().getStatus());
+	}
+
+	@Test
+	void createdUsersAreWrittenThroughUnderBothKeys() {
+		applier.onUserChanged(new UserChangedEvent.Upserted(user("sub-erin", "erin@example.com", "ENABLED", "SuperAdmins")));
+
+		assertTrue(directory.get("erin@example.com").isPresent());
+		assertEquals("erin@example.com", subUsernameCache.getUsername("sub-erin", sub -> null));
+		assertEquals("erin@example.com", profileCache.getIfLoaded("sub-erin").orElseThrow().getUsername());
+	}
+
+	private static CognitoUserResponse user(String sub, String username, String status, String... groups) {
+		CognitoUserResponse user = new CognitoUserResponse();
+		user.setId(sub);
+		user.setUsername(username);
+		user.setEmail(username);
+		user.setStatus(status);
+		user.setUserGroups(List.of(groups));
+		return user;
+	}
+}
@@ -0,0 +1,46 @@
+package com.ashanhimantha.user_service.service.cognito;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void queuesCallersOnceTheBurstIsSpent() {
+		TokenBucket bucket = new TokenBucket(2, 0.1, 0);
+
+		assertEquals(0, bucket.reserve(SECOND, 0));
+		assertEquals(0, bucket.reserve(SECOND, 0));
+		assertEquals(SECOND / 2, bucket.reserve(SECOND, 0));
+		assertEquals(SECOND, bucket.reserve(SECOND, 0));
+		assertEquals(-1, bucket.reserve(SECOND, 0));
+	}
+
+	@Test
+	void halvesRateOnThrottleAndRecoversOnSuccess() {
+		TokenBucket bucket = new TokenBucket(10, 0.1, 0);
+
+		bucket.onThrottled();
+		bucket.onThrottled();
+		assertEquals(2.5, bucket.currentRate(), 1e-9);
+
+		for (int i = 0; i < 100; i++) {
+			bucket.onSuccess();
+		}
+		assertEquals(10, bucket.currentRate(), 1e-9);
+	}
+
+	@Test
+	void neverDropsBelowMinimumRate() {
+		TokenBucket bucket = new TokenBucket(10, 0.1, 0);
+
+		for (int i = 0; i < 20; i++) {
+			bucket.onThrottled();
+		}
+		assertTrue(bucket.currentRate() >= 1.0);
+	}
+}
@@ -0,0 +1,65 @@
+package com.ashanhimantha.user_service.service.coherence;
+
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CoherenceChannelTests {
+
+	private final DataSource dataSource = mock(DataSource.class);
+	private final Connection connection = mock(Connection.class);
+	private final PreparedStatement statement = mock(PreparedStatement.class);
+	private final CoherenceChannel channel = new CoherenceChannel(dataSource, mock(JdbcTemplate.class), new ObjectMapper(),
+			mock(ApplicationEventPublisher.class), true, 3_600_000, 500);
+
+	@BeforeEach
+	void connect() throws SQLException {
+		when(dataSource.getConnection()).thenReturn(connection);
+		when(connection.prepareStatement(anyString())).thenReturn(statement);
+		when(statement.executeQuery()).thenReturn(mock(ResultSet.class));
+	}
+
+	@AfterEach
+	void clearSynchronization() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void eventsRaisedInATransactionAreSentOnlyAfterItCommits() throws SQLException {
+		TransactionSynchronizationManager.initSynchronization();
+
+		channel.onAddressChanged(new AddressChangedEvent("sub-bob"));
+		verify(dataSource, never()).getConnection();
+
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		verify(statement).executeQuery();
+	}
+
+	@Test
+	void aFailedSendDoesNotReachTheCaller() throws SQLException {
+		when(statement.executeQuery()).thenThrow(new SQLException("relation \"coherence_events\" does not exist"));
+
+		assertDoesNotThrow(() -> channel.onAddressChanged(new AddressChangedEvent("sub-bob")));
+	}
+}
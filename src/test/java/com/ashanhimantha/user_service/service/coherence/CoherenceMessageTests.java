@@ -0,0 +1,55 @@
+package com.ashanhimantha.user_service.service.coherence;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.event.AddressChangedEvent;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CoherenceMessageTests {
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	@Test
+	void everyEventSurvivesTheWireFormat() throws Exception {
+		CognitoUserResponse erin = new CognitoUserResponse();
+		erin.setId("sub-erin");
+		erin.setUsername("erin@example.com");
+		erin.setUserGroups(List.of("DataStewards"));
+
+		List<Object> events = List.of(
+				new UserChangedEvent.Upserted(erin),
+				new UserChangedEvent.GroupMembershipChanged("bob@example.com", "Suppliers", false),
+				new UserChangedEvent.StatusChanged("bob@example.com", true),
+				new UserChangedEvent.Removed("dave@example.org", "sub-dave"),
+				new AddressChangedEvent("sub-bob"),
+				new AddressChangedEvent(List.of("sub-bob", "sub-carol")));
+
+		long seq = 0;
+		for (Object event : events) {
+			seq++;
+			CoherenceMessage sent = event instanceof UserChangedEvent userEvent
+					? CoherenceMessage.of("replica-a", seq, userEvent)
+					: CoherenceMessage.of("replica-a", seq, (AddressChangedEvent) event);
+			CoherenceMessage received = objectMapper.readValue(objectMapper.writeValueAsString(sent), CoherenceMessage.class)
+					.withId(40 + seq);
+
+			assertEquals(event, received.toEvent());
+			assertEquals(seq, received.seq());
+			assertEquals(40 + seq, received.id());
+		}
+	}
+
+	@Test
+	void unknownKindsAreIgnored() throws Exception {
+		CoherenceMessage future = objectMapper.readValue(
+				"{\"origin\":\"replica-b\",\"seq\":3,\"kind\":\"user-deleted\",\"username\":\"bob@example.com\"}",
+				CoherenceMessage.class);
+		assertNull(future.toEvent());
+	}
+}
@@ -0,0 +1,98 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Heap cost per user of the directory's representations. Not part of the regular test run; run with
+ * {@code mvn test -Dtest=DirectoryMemoryBenchmark [-Dbenchmark.users=N]}.
+ * <p>
+ * "Before" is one {@link CognitoUserResponse} per user, which is what the directory used to retain
+ * (excluding its map and normalized search copies, so the real saving is larger). "After" is the
+ * {@link UserColumns} store alone, and the whole {@link UserDirectory} including its username map,
+ * trigram index and group bitsets.
+ */
+class DirectoryMemoryBenchmark {
+
+	private static final String[] FIRST_NAMES = {"Ashan", "Nimal", "Kasun", "Dilani", "Sachini", "Ruwan", "Ishara", "Tharindu"};
+	private static final String[] LAST_NAMES = {"Perera", "Fernando", "Silva", "Jayasinghe", "Bandara", "Wickramasinghe"};
+	private static final String[] STATUSES = {"CONFIRMED", "CONFIRMED", "CONFIRMED", "UNCONFIRMED", "FORCE_CHANGE_PASSWORD"};
+	private static final List<List<String>> GROUP_SETS = List.of(
+			List.of("Customers"), List.of("Customers"), List.of("Customers"), List.of("Suppliers"),
+			List.of("Suppliers", "Customers"), List.of("DataStewards"), List.of("SuperAdmins"), List.of());
+
+	@Test
+	void reportBytesPerUser() {
+		int users = Integer.getInteger("benchmark.users", 200_000);
+
+		long baseline = usedHeap();
+		List<CognitoUserResponse> responses = generate(users);
+		long responseBytes = usedHeap() - baseline;
+
+		// Each representation is measured on its own, after the generated responses are released, so the
+		// unique strings it keeps (usernames, subs, phones) are counted.
+		UserColumns columns = new UserColumns();
+		responses.forEach(columns::add);
+		responses = null;
+		long columnBytes = usedHeap() - baseline;
+		int storedColumns = columns.size();
+		columns = null;
+
+		UserDirectory directory = new UserDirectory(List.of("SuperAdmins", "DataStewards"));
+		long beforeDirectory = usedHeap();
+		directory.replaceAll(generate(users));
+		long directoryBytes = usedHeap() - beforeDirectory;
+
+		System.out.printf("users=%d%n", users);
+		System.out.printf("before: CognitoUserResponse objects   %,8d bytes/user%n", responseBytes / users);
+		System.out.printf("after:  UserColumns store             %,8d bytes/user%n", columnBytes / users);
+		System.out.printf("after:  UserDirectory incl. indexes   %,8d bytes/user%n", directoryBytes / users);
+
+		assertTrue(columnBytes < responseBytes, "columnar store should be smaller than the response objects");
+		assertEquals(users, storedColumns);
+		assertEquals(users, directory.size());
+	}
+
+	private static List<CognitoUserResponse> generate(int count) {
+		List<CognitoUserResponse> users = new ArrayList<>(count);
+		Instant epoch = Instant.parse("2023-01-01T00:00:00Z");
+		for (int i = 0; i < count; i++) {
+			CognitoUserResponse user = new CognitoUserResponse();
+			String username = "user" + i + "@example.com";
+			user.setId(UUID.randomUUID().toString());
+			user.setUsername(username);
+			user.setEmail(new String(username));
+			user.setFirstName(new String(FIRST_NAMES[i % FIRST_NAMES.length]));
+			user.setLastName(new String(LAST_NAMES[i % LAST_NAMES.length]));
+			user.setPhone(String.format("+9477%07d", i));
+			user.setEmailVerified(i % 3 != 0);
+			user.setStatus(new String(STATUSES[i % STATUSES.length]));
+			user.setCreatedDate(epoch.plusSeconds(i * 37L).plusMillis(i % 1000).toString());
+			user.setLastModifiedDate(epoch.plusSeconds(i * 53L).toString());
+			user.setUserGroups(new ArrayList<>(GROUP_SETS.get(i % GROUP_SETS.size())));
+			users.add(user);
+		}
+		return users;
+	}
+
+	private static long usedHeap() {
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+			try {
+				Thread.sleep(100);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+	}
+}
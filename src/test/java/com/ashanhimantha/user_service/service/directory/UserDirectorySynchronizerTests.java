@@ -0,0 +1,137 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.ashanhimantha.user_service.service.CognitoUserService;
+import com.ashanhimantha.user_service.service.readmodel.UserReadModel;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static com.ashanhimantha.user_service.service.directory.UserDirectoryTests.user;
+import static com.ashanhimantha.user_service.service.directory.UserDirectoryTests.usernames;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserDirectorySynchronizerTests {
+
+	private final UserDirectory directory = new UserDirectory(List.of("SuperAdmins", "DataStewards"));
+	private final CognitoUserService cognito = mock(CognitoUserService.class);
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	// Held so the weakly referenced counters outlive the sweep.
+	private UserDirectorySynchronizer synchronizer;
+
+	@TempDir
+	Path temporary;
+
+	@BeforeEach
+	void loadDirectory() {
+		directory.replaceAll(List.of(
+				modified(user("alice@example.com", "Alice", "Smith", "ENABLED", "SuperAdmins"), "2024-01-01T00:00:00Z"),
+				modified(user("bob@example.com", "Bob", "Stone", "ENABLED"), "2024-01-01T00:00:00Z"),
+				modified(user("carol@example.org", "Carol", "Smithers", "ENABLED", "Suppliers"), "2024-01-01T00:00:00Z"),
+				modified(user("dave@example.org", "Dave", null, "ENABLED"), "2024-01-01T00:00:00Z")));
+	}
+
+	@Test
+	void writesOnlyChangedUsersAndRemovesUnseenOnes() throws InterruptedException {
+		when(cognito.getAllGroupMemberships()).thenReturn(Map.of(
+				"alice@example.com", List.of("SuperAdmins"),
+				"carol@example.org", List.of("Suppliers", "DataStewards")));
+		when(cognito.listUsersPage(isNull())).thenReturn(new CognitoUserService.PaginatedUserResponse(List.of(
+				fromCognito("alice@example.com", "Alice", "ENABLED", "2024-01-01T00:00:00Z"),
+				fromCognito("bob@example.com", "Bob", "DISABLED", "2024-02-01T00:00:00Z")), "page-2"));
+		when(cognito.listUsersPage("page-2")).thenReturn(new CognitoUserService.PaginatedUserResponse(List.of(
+				fromCognito("carol@example.org", "Carol", "ENABLED", "2024-01-01T00:00:00Z"),
+				fromCognito("erin@example.org", "Erin", "ENABLED", "2024-03-01T00:00:00Z")), null));
+
+		synchronizer(null).sweep();
+
+		assertEquals(3, changes("upsert"));
+		assertEquals(1, changes("remove"));
+		assertEquals(List.of("alice@example.com", "bob@example.com", "carol@example.org", "erin@example.org"),
+				directory.usernames());
+		assertEquals("DISABLED", directory.get("bob@example.com").orElseThrow().getStatus());
+		assertEquals(List.of("alice@example.com", "carol@example.org"), usernames(directory.findEmployees()));
+	}
+
+	@Test
+	void keepsUsersChangedWhileTheSweepRuns() throws InterruptedException {
+		when(cognito.getAllGroupMemberships()).thenReturn(Map.of("alice@example.com", List.of("SuperAdmins")));
+		when(cognito.listUsersPage(isNull())).thenReturn(new CognitoUserService.PaginatedUserResponse(List.of(
+				fromCognito("bob@example.com", "Bob", "ENABLED", "2024-01-01T00:00:00Z"),
+				fromCognito("carol@example.org", "Carol", "ENABLED", "2024-01-01T00:00:00Z"),
+				fromCognito("dave@example.org", "Dave", "ENABLED", "2024-01-01T00:00:00Z")), "page-2"));
+		when(cognito.listUsersPage("page-2")).thenAnswer(invocation -> {
+			// Alice is demoted and Frank signs up after the group scan, on a page already walked.
+			CognitoUserResponse alice = modified(user("alice@example.com", "Alice", "Smith", "ENABLED"), "2024-01-01T00:00:00Z");
+			CognitoUserResponse frank = modified(user("frank@example.org", "Frank", null, "ENABLED"), "2024-05-01T00:00:00Z");
+			for (CognitoUserResponse changed : List.of(alice, frank)) {
+				directory.upsert(changed);
+				synchronizer.onUserChanged(new UserChangedEvent.Upserted(changed));
+			}
+			return new CognitoUserService.PaginatedUserResponse(List.of(
+					fromCognito("alice@example.com", "Alice", "ENABLED", "2024-01-01T00:00:00Z")), null);
+		});
+		synchronizer(null);
+
+		synchronizer.sweep();
+
+		assertEquals(List.of(), directory.get("alice@example.com").orElseThrow().getUserGroups());
+		assertTrue(directory.get("frank@example.org").isPresent());
+		assertEquals(0, changes("remove"));
+	}
+
+	@Test
+	void resumesFromTheCheckpointWithoutRemovingUsers() throws Exception {
+		Path checkpoint = temporary.resolve("directory.resync");
+		Files.writeString(checkpoint, "sweepStarted=2024-04-01T00\\:00\\:00Z\npaginationToken=page-2\npages=1\nchanged=0\n");
+		when(cognito.getAllGroupMemberships()).thenReturn(Map.of());
+		when(cognito.listUsersPage("page-2")).thenReturn(new CognitoUserService.PaginatedUserResponse(List.of(
+				fromCognito("erin@example.org", "Erin", "ENABLED", "2024-03-01T00:00:00Z")), null));
+
+		synchronizer(checkpoint).sweep();
+
+		verify(cognito, never()).listUsersPage(isNull());
+		assertEquals(1, changes("upsert"));
+		assertEquals(0, changes("remove"));
+		assertEquals(5, directory.size());
+		assertFalse(Files.exists(checkpoint));
+	}
+
+	private UserDirectorySynchronizer synchronizer(Path checkpoint) {
+		UserReadModel readModel = mock(UserReadModel.class);
+		when(readModel.isEnabled()).thenReturn(false);
+		synchronizer = new UserDirectorySynchronizer(cognito, directory, readModel, registry,
+				true, 1000, 0, 0, checkpoint == null ? "" : checkpoint.toString());
+		synchronizer.bindTo(registry);
+		return synchronizer;
+	}
+
+	private double changes(String change) {
+		return registry.get("user.directory.resync.changes").tag("change", change).functionCounter().count();
+	}
+
+	private static CognitoUserResponse fromCognito(String username, String firstName, String status, String lastModified) {
+		CognitoUserResponse user = modified(user(username, firstName, null, status), lastModified);
+		user.setUserGroups(List.of());
+		return user;
+	}
+
+	private static CognitoUserResponse modified(CognitoUserResponse user, String lastModified) {
+		user.setLastModifiedDate(lastModified);
+		return user;
+	}
+}
@@ -0,0 +1,227 @@
+package com.ashanhimantha.user_service.service.directory;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserDirectoryTests {
+
+	private final UserDirectory directory = new UserDirectory(List.of("SuperAdmins", "DataStewards"));
+
+	@BeforeEach
+	void loadDirectory() {
+		directory.replaceAll(List.of(
+				user("alice@example.com", "Alice", "Smith", "ENABLED", "SuperAdmins"),
+				user("bob@example.com", "Bob", "Stone", "DISABLED", "Suppliers"),
+				user("carol@example.org", "Carol", "Smithers", "ENABLED", "DataStewards", "Suppliers"),
+				user("dave@example.org", "Dave", null, "ENABLED")));
+	}
+
+	@Test
+	void matchesContainsFiltersCaseInsensitively() {
+		assertEquals(List.of("alice@example.com", "carol@example.org"),
+				usernames(directory.search(new SearchCriteria(null, null, "SMITH", null, null, null))));
+		assertEquals(List.of("carol@example.org", "dave@example.org"),
+				usernames(directory.search(new SearchCriteria(" .ORG ", null, null, null, null, null))));
+	}
+
+	@Test
+	void combinesStatusAndRoleFilters() {
+		assertEquals(List.of("carol@example.org"),
+				usernames(directory.search(new SearchCriteria(null, null, null, null, "enabled", "suppl"))));
+		assertEquals(List.of("bob@example.com"),
+				usernames(directory.search(new SearchCriteria(null, null, null, null, "DISABLED", null))));
+	}
+
+	@Test
+	void blankCriteriaMatchEveryone() {
+		assertEquals(4, directory.search(new SearchCriteria(null, "", " ", null, null, null)).size());
+	}
+
+	@Test
+	void findsMembersOfAnyGroup() {
+		assertEquals(List.of("alice@example.com", "carol@example.org"),
+				usernames(directory.findByAnyGroup(List.of("SuperAdmins", "DataStewards"))));
+	}
+
+	@Test
+	void pagesResumeAfterTheCursorKey() {
+		SearchCriteria enabled = new SearchCriteria(null, null, null, null, "ENABLED", null);
+
+		List<CognitoUserResponse> first = directory.searchAfter(null, 2, enabled);
+		assertEquals(List.of("alice@example.com", "carol@example.org", "dave@example.org"), usernames(first));
+
+		List<CognitoUserResponse> second = directory.searchAfter("carol@example.org", 2, enabled);
+		assertEquals(List.of("dave@example.org"), usernames(second));
+		assertNull(SearchCursor.decode(null));
+		assertEquals("carol@example.org", SearchCursor.decode(SearchCursor.encode("carol@example.org")));
+	}
+
+	@Test
+	void indexedSearchVerifiesTrigramCandidates() {
+		assertEquals(List.of("carol@example.org"),
+				usernames(directory.search(new SearchCriteria(null, null, "smithe", null, null, null))));
+		// A trigram missing from the index short-circuits to no candidates.
+		assertEquals(List.of(),
+				usernames(directory.search(new SearchCriteria(null, null, "mithsm", null, null, null))));
+		assertEquals(List.of("carol@example.org"),
+				usernames(directory.searchAfter("alice@example.com", 5, new SearchCriteria(null, null, "smith", null, null, null))));
+	}
+
+	@Test
+	void incrementalUpdatesKeepTheIndexCurrent() {
+		SearchCriteria stone = new SearchCriteria(null, null, "stone", null, null, null);
+		directory.upsert(user("bob@example.com", "Bob", "Marley", "DISABLED", "Suppliers"));
+		assertEquals(List.of(), usernames(directory.search(stone)));
+
+		directory.upsert(user("erin@example.net", "Erin", "Stonebridge", "ENABLED"));
+		assertEquals(List.of("erin@example.net"), usernames(directory.search(stone)));
+
+		directory.remove("erin@example.net");
+		assertEquals(List.of(), usernames(directory.search(stone)));
+		assertEquals(4, directory.size());
+	}
+
+	@Test
+	void employeeViewFollowsMembershipChanges() {
+		assertEquals(List.of("alice@example.com", "carol@example.org"), usernames(directory.findEmployees()));
+
+		directory.upsert(user("dave@example.org", "Dave", null, "ENABLED", "DataStewards"));
+		directory.upsert(user("alice@example.com", "Alice", "Smith", "ENABLED", "Suppliers"));
+		assertEquals(List.of("carol@example.org", "dave@example.org"), usernames(directory.findEmployees()));
+		assertEquals(List.of("alice@example.com", "bob@example.com", "carol@example.org"),
+				usernames(directory.findByAnyGroup(List.of("Suppliers"))));
+	}
+
+	@Test
+	void rebuildsResponsesFromTheColumnarStore() {
+		CognitoUserResponse stored = user("erin@example.net", "Erin", "Stone", "CONFIRMED", "Suppliers", "DataStewards");
+		stored.setPhone("+94770000000");
+		stored.setEmailVerified(true);
+		stored.setCreatedDate("2024-05-01T10:15:30.123Z");
+		stored.setLastModifiedDate("2025-01-02T03:04:05Z");
+		directory.upsert(stored);
+
+		assertEquals(List.of(stored), directory.search(new SearchCriteria("erin@", null, null, null, null, null)));
+	}
+
+	@Test
+	void restoresFromAMemoryMappedSnapshot(@TempDir Path snapshotDir) throws Exception {
+		Path snapshot = snapshotDir.resolve("directory.snapshot");
+		new DirectorySnapshotStore(directory, snapshot.toString()).write();
+
+		UserDirectory restarted = new UserDirectory(List.of("SuperAdmins", "DataStewards"));
+		assertTrue(new DirectorySnapshotStore(restarted, snapshot.toString()).load());
+		assertEquals(directory.search(new SearchCriteria(null, null, null, null, null, null)),
+				restarted.search(new SearchCriteria(null, null, null, null, null, null)));
+		assertEquals(List.of("alice@example.com", "carol@example.org"), usernames(restarted.findEmployees()));
+		assertEquals(directory.getLastRefreshed().toEpochMilli(), restarted.getLastRefreshed().toEpochMilli());
+
+		byte[] corrupt = Files.readAllBytes(snapshot);
+		corrupt[corrupt.length / 2] ^= 1;
+		Files.write(snapshot, corrupt);
+		assertFalse(new DirectorySnapshotStore(new UserDirectory(List.of()), snapshot.toString()).load());
+	}
+
+	@Test
+	void sharedStringsAndGroupSetsAreReleasedWithTheirLastUser() {
+		UserColumns columns = new UserColumns();
+		int alice = columns.add(user("alice@example.com", "Alice", "Smith", "ENABLED", "SuperAdmins"));
+		int baseline = columns.internedCount();
+
+		for (int i = 0; i < 100; i++) {
+			int renamed = columns.add(user("user" + i + "@example.com", "First" + i, "Last" + i, "ENABLED", "Group" + i));
+			columns.remove(renamed);
+		}
+
+		assertEquals(baseline, columns.internedCount());
+		columns.remove(alice);
+		assertEquals(0, columns.internedCount());
+	}
+
+	@Test
+	void fullRefreshKeepsUsersWrittenWhileTheScanRan() {
+		List<CognitoUserResponse> scanned = List.of(
+				user("alice@example.com", "Alice", "Smith", "ENABLED", "SuperAdmins"),
+				user("bob@example.com", "Bob", "Stone", "ENABLED", "Suppliers"),
+				user("dave@example.org", "Dave", null, "ENABLED"));
+
+		directory.beginRefresh();
+		directory.upsert(user("bob@example.com", "Bob", "Stone", "DISABLED", "Suppliers"));
+		directory.remove("dave@example.org");
+		directory.upsert(user("erin@example.org", "Erin", null, "ENABLED", "DataStewards"));
+		directory.replaceAll(scanned);
+		directory.endRefresh();
+
+		assertEquals(List.of("alice@example.com", "bob@example.com", "erin@example.org"), directory.usernames());
+		assertEquals("DISABLED", directory.get("bob@example.com").orElseThrow().getStatus());
+		assertEquals(List.of("alice@example.com", "erin@example.org"), usernames(directory.findEmployees()));
+
+		directory.replaceAll(scanned);
+		assertEquals("ENABLED", directory.get("bob@example.com").orElseThrow().getStatus());
+	}
+
+	@Test
+	void indexedMatchesComeBackInUsernameOrder() {
+		List<CognitoUserResponse> users = new ArrayList<>();
+		for (int i = 0; i < 500; i++) {
+			int n = (i * 7919) % 500;
+			users.add(user(String.format("member%03d@example.com", n), "Member", "Smith", "ENABLED", "Suppliers"));
+		}
+		directory.replaceAll(users);
+
+		List<String> expected = users.stream().map(CognitoUserResponse::getUsername).sorted().toList();
+		assertEquals(expected, usernames(directory.findByAnyGroup(List.of("Suppliers"))));
+		assertEquals(expected, usernames(directory.search(new SearchCriteria(null, null, "smith", null, null, null))));
+	}
+
+	@Test
+	void streamsFollowUpdatesMadeWhileTheyAreConsumed() {
+		List<CognitoUserResponse> users = new ArrayList<>();
+		for (int i = 0; i < 5000; i++) {
+			users.add(user(String.format("member%04d@example.com", i), "Member", "Smith", "ENABLED", "Suppliers"));
+		}
+		directory.replaceAll(users);
+
+		Iterator<CognitoUserResponse> members = directory.streamByAnyGroup(List.of("Suppliers")).iterator();
+		assertEquals("member0000@example.com", members.next().getUsername());
+
+		directory.remove("member4999@example.com");
+		directory.upsert(user("member4998@example.com", "Member", "Smith", "ENABLED", "Customers"));
+		directory.upsert(user("member5000@example.com", "Member", "Smith", "ENABLED", "Suppliers"));
+
+		List<String> rest = new ArrayList<>();
+		members.forEachRemaining(user -> rest.add(user.getUsername()));
+		assertEquals(4998, rest.size());
+		assertEquals("member4997@example.com", rest.get(rest.size() - 2));
+		assertEquals("member5000@example.com", rest.get(rest.size() - 1));
+	}
+
+	static CognitoUserResponse user(String username, String firstName, String lastName, String status, String... groups) {
+		CognitoUserResponse user = new CognitoUserResponse();
+		user.setId("sub-" + username);
+		user.setUsername(username);
+		user.setEmail(username);
+		user.setFirstName(firstName);
+		user.setLastName(lastName);
+		user.setStatus(status);
+		user.setUserGroups(List.of(groups));
+		return user;
+	}
+
+	static List<String> usernames(List<CognitoUserResponse> users) {
+		return users.stream().map(CognitoUserResponse::getUsername).toList();
+	}
+}
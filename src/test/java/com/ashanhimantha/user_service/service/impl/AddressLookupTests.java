@@ -0,0 +1,57 @@
+package com.ashanhimantha.user_service.service.impl;
+
+import com.ashanhimantha.user_service.entity.Address;
+import com.ashanhimantha.user_service.repository.AddressRepository;
+import com.ashanhimantha.user_service.service.CognitoUserService;
+import com.ashanhimantha.user_service.service.cache.ProfileCache;
+import com.ashanhimantha.user_service.service.cache.SubUsernameCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+class AddressLookupTests {
+
+	private final AddressRepository addressRepository = mock(AddressRepository.class);
+	private final UserServiceImpl userService = new UserServiceImpl(mock(CognitoUserService.class), addressRepository,
+			mock(SubUsernameCache.class), mock(ProfileCache.class), 5000, mock(ApplicationEventPublisher.class), 2);
+
+	@Test
+	void groupsAddressesByUserInRequestOrderWithOneQueryPerChunk() {
+		when(addressRepository.findByUserIdInOrderByUserIdAscIdAsc(List.of("carol", "alice")))
+				.thenReturn(List.of(address(1L, "alice"), address(2L, "carol"), address(3L, "carol")));
+		when(addressRepository.findByUserIdInOrderByUserIdAscIdAsc(List.of("bob")))
+				.thenReturn(List.of());
+
+		Map<String, List<Address>> addresses = userService.getAddressesForUsers(List.of("carol", "alice", "carol", "bob"));
+
+		assertEquals(List.of("carol", "alice", "bob"), List.copyOf(addresses.keySet()));
+		assertEquals(List.of(2L, 3L), addresses.get("carol").stream().map(Address::getId).toList());
+		assertEquals(List.of(1L), addresses.get("alice").stream().map(Address::getId).toList());
+		assertEquals(List.of(), addresses.get("bob"));
+		verify(addressRepository).findByUserIdInOrderByUserIdAscIdAsc(List.of("carol", "alice"));
+		verify(addressRepository).findByUserIdInOrderByUserIdAscIdAsc(List.of("bob"));
+		verifyNoMoreInteractions(addressRepository);
+	}
+
+	@Test
+	void rejectsBlankUserIdsBeforeQuerying() {
+		assertThrows(IllegalArgumentException.class, () -> userService.getAddressesForUsers(List.of("alice", " ")));
+		verifyNoMoreInteractions(addressRepository);
+	}
+
+	private static Address address(long id, String userId) {
+		Address address = new Address();
+		address.setId(id);
+		address.setUserId(userId);
+		return address;
+	}
+}
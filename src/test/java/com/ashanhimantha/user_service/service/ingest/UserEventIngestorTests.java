@@ -0,0 +1,90 @@
+package com.ashanhimantha.user_service.service.ingest;
+
+import com.ashanhimantha.user_service.dto.response.CognitoUserResponse;
+import com.ashanhimantha.user_service.event.UserChangedEvent;
+import com.ashanhimantha.user_service.exception.CognitoUserNotFoundException;
+import com.ashanhimantha.user_service.service.CognitoUserService;
+import com.ashanhimantha.user_service.service.cache.ProfileCache;
+import com.ashanhimantha.user_service.service.cache.SubUsernameCache;
+import com.ashanhimantha.user_service.service.cache.UserChangeApplier;
+import com.ashanhimantha.user_service.service.directory.UserDirectory;
+import com.ashanhimantha.user_service.service.readmodel.UserReadModel;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserEventIngestorTests {
+
+	private final UserDirectory directory = new UserDirectory(List.of("SuperAdmins", "DataStewards"));
+	private final CognitoUserService cognito = mock(CognitoUserService.class);
+	@SuppressWarnings("unchecked")
+	private final UserChangeApplier applier = new UserChangeApplier(directory, mock(UserReadModel.class),
+			new ProfileCache(mock(ObjectProvider.class), 100, 60_000, 60_000, 1), new SubUsernameCache(100, 1));
+	private final UserEventIngestor ingestor = new UserEventIngestor(directory, cognito,
+			event -> applier.onUserChanged((UserChangedEvent) event), 500, 60_000, 1000);
+
+	@BeforeEach
+	void loadDirectory() {
+		directory.replaceAll(List.of(
+				user("bob@example.com", "Bob", "Suppliers"),
+				user("dave@example.org", "Dave")));
+	}
+
+	@Test
+	void appliesRecordedTriggerAndEventBridgeEventsOnce() throws Exception {
+		try (InputStream recording = getClass().getResourceAsStream("/ingest/recorded-user-events.json")) {
+			UserEventIngestor.IngestResult result = ingestor.accept(new ObjectMapper().readTree(recording));
+			assertEquals(new UserEventIngestor.IngestResult(6, 3, 2, 1), result);
+		}
+		assertEquals(List.of("bob@example.com", "dave@example.org"), directory.usernames());
+
+		ingestor.flush();
+
+		assertEquals(List.of("bob@example.com", "erin@example.org"), directory.usernames());
+		CognitoUserResponse erin = directory.get("erin@example.org").orElseThrow();
+		assertEquals("sub-erin", erin.getId());
+		assertEquals("ENABLED", erin.getStatus());
+		CognitoUserResponse bob = directory.get("bob@example.com").orElseThrow();
+		assertEquals("Robert", bob.getFirstName());
+		assertEquals(List.of("bob@example.com"), directory.findEmployees().stream().map(CognitoUserResponse::getUsername).toList());
+		verifyNoInteractions(cognito);
+	}
+
+	@Test
+	void refreshOfAUserCognitoNoLongerHasRemovesIt() {
+		when(cognito.getUserProfileByUsername("bob@example.com"))
+				.thenThrow(new CognitoUserNotFoundException("User not found: bob@example.com"));
+		ObjectNode event = new ObjectMapper().createObjectNode()
+				.put("id", "3f1c2a9e-0b7d-4e55-8c21-7a9d4e6b1f02")
+				.put("detail-type", "AWS API Call via CloudTrail");
+		event.putObject("detail")
+				.put("eventName", "AdminUpdateUserAttributes")
+				.putObject("requestParameters").put("username", "bob@example.com");
+
+		ingestor.accept(event);
+		ingestor.flush();
+
+		assertEquals(List.of("dave@example.org"), directory.usernames());
+	}
+
+	private static CognitoUserResponse user(String username, String firstName, String... groups) {
+		CognitoUserResponse user = new CognitoUserResponse();
+		user.setId("sub-" + username);
+		user.setUsername(username);
+		user.setEmail(username);
+		user.setFirstName(firstName);
+		user.setStatus("ENABLED");
+		user.setUserGroups(List.of(groups));
+		return user;
+	}
+}
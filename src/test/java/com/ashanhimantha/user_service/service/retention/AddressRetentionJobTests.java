@@ -0,0 +1,58 @@
+package com.ashanhimantha.user_service.service.retention;
+
+import com.ashanhimantha.user_service.enums.AddressRetentionMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AddressRetentionJobTests {
+
+	private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+
+	@Test
+	void archivesInBatchesUntilABatchComesBackShort() {
+		when(jdbcTemplate.update(anyString(), any(), eq(10))).thenReturn(10, 10, 3);
+
+		job(AddressRetentionMode.ARCHIVE, 100).run();
+
+		verify(jdbcTemplate, times(3)).update(contains("INSERT INTO addresses_archive"), any(), eq(10));
+	}
+
+	@Test
+	void undatedRowsStartTheirRetentionPeriodInsteadOfBeingTakenAtOnce() {
+		job(AddressRetentionMode.PURGE, 100).run();
+
+		verify(jdbcTemplate).update(contains("SET deleted_at = now() WHERE NOT active AND deleted_at IS NULL"));
+		verify(jdbcTemplate, never()).update(contains("deleted_at IS NULL OR"), any(), any());
+	}
+
+	@Test
+	void stopsAfterTheBatchLimitAndLeavesTheRestForTheNextRun() {
+		when(jdbcTemplate.update(anyString(), any(), eq(10))).thenReturn(10);
+
+		job(AddressRetentionMode.PURGE, 2).run();
+
+		verify(jdbcTemplate, times(2)).update(contains("DELETE FROM addresses"), any(), eq(10));
+		verify(jdbcTemplate, never()).update(contains("addresses_archive"), any(), any());
+	}
+
+	@Test
+	void doesNothingWhenOff() {
+		job(AddressRetentionMode.OFF, 100).run();
+
+		verify(jdbcTemplate, never()).update(anyString(), any(), any());
+	}
+
+	private AddressRetentionJob job(AddressRetentionMode mode, int maxBatches) {
+		return new AddressRetentionJob(jdbcTemplate, mode, 86_400_000, 10, maxBatches, 0);
+	}
+}
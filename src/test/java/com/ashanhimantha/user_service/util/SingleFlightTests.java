@@ -0,0 +1,94 @@
+package com.ashanhimantha.user_service.util;
+
+import com.ashanhimantha.user_service.exception.UpstreamTimeoutException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTests {
+
+	private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+	@Test
+	void concurrentCallersShareOneExecution() throws Exception {
+		AtomicInteger executions = new AtomicInteger();
+		CountDownLatch leaderStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("user", () -> {
+			executions.incrementAndGet();
+			leaderStarted.countDown();
+			await(release);
+			return "profile";
+		}, Duration.ofSeconds(5)));
+		assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+		CompletableFuture<String> follower = CompletableFuture.supplyAsync(() ->
+				singleFlight.execute("user", () -> "second-fetch", Duration.ofSeconds(5)));
+		// Give the follower time to join the in-flight call before the leader finishes.
+		Thread.sleep(200);
+		release.countDown();
+
+		assertEquals("profile", leader.get(5, TimeUnit.SECONDS));
+		assertEquals("profile", follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1, executions.get());
+		assertEquals(0, singleFlight.inFlightCount());
+	}
+
+	@Test
+	void failuresReachEveryWaiterAndAreNotRemembered() throws Exception {
+		CountDownLatch leaderStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("user", () -> {
+			leaderStarted.countDown();
+			await(release);
+			throw new RuntimeException("User not found: user");
+		}, Duration.ofSeconds(5)));
+		assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+		CompletableFuture<String> follower = CompletableFuture.supplyAsync(() ->
+				singleFlight.execute("user", () -> "unused", Duration.ofSeconds(5)));
+		Thread.sleep(200);
+		release.countDown();
+
+		ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+		ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+		assertEquals("User not found: user", leaderError.getCause().getMessage());
+		assertEquals("User not found: user", followerError.getCause().getMessage());
+
+		assertEquals("retried", singleFlight.execute("user", () -> "retried", Duration.ofSeconds(5)));
+	}
+
+	@Test
+	void waiterTimesOutWithoutCancellingTheSharedCall() throws Exception {
+		CountDownLatch leaderStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> singleFlight.execute("user", () -> {
+			leaderStarted.countDown();
+			await(release);
+			return "profile";
+		}, Duration.ofSeconds(5)));
+		assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+		assertThrows(UpstreamTimeoutException.class,
+				() -> singleFlight.execute("user", () -> "unused", Duration.ofMillis(50)));
+		release.countDown();
+		assertEquals("profile", leader.get(5, TimeUnit.SECONDS));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}